@@ -0,0 +1,98 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adds and removes at both ends on top of a deque holding {@code size} items,
+ * and iteration over it, shared by the deque implementations. Subclasses keep
+ * the handles in their own {@code static final} fields and return them from
+ * the accessors, each benchmark runs in its own fork with a single subclass
+ * loaded, so JIT inlines the accessors and still sees constant handles
+ *
+ * @author Alexander Panko
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractDequeBenchmark {
+    @Param({ "16", "1024", "65536" })
+    private int size;
+
+    private Object deque;
+    private Object item;
+
+    abstract MethodHandle newDeque();
+
+    abstract MethodHandle addFirst();
+
+    abstract MethodHandle addLast();
+
+    abstract MethodHandle removeFirst();
+
+    abstract MethodHandle removeLast();
+
+    abstract MethodHandle iterator();
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        deque = (Object) newDeque().invokeExact();
+        for (int i = 0; i < size; i++) {
+            Object o = Integer.valueOf(i);
+            addLast().invokeExact(deque, o);
+        }
+        item = Integer.valueOf(-1);
+    }
+
+    @Benchmark
+    public Object addFirstRemoveFirst() throws Throwable {
+        addFirst().invokeExact(deque, item);
+        return (Object) removeFirst().invokeExact(deque);
+    }
+
+    @Benchmark
+    public Object addLastRemoveLast() throws Throwable {
+        addLast().invokeExact(deque, item);
+        return (Object) removeLast().invokeExact(deque);
+    }
+
+    @Benchmark
+    public Object addFirstRemoveLast() throws Throwable {
+        addFirst().invokeExact(deque, item);
+        return (Object) removeLast().invokeExact(deque);
+    }
+
+    @Benchmark
+    public Object addLastRemoveFirst() throws Throwable {
+        addLast().invokeExact(deque, item);
+        return (Object) removeFirst().invokeExact(deque);
+    }
+
+    @Benchmark
+    public int iterate() throws Throwable {
+        int count = 0;
+        Iterator<?> it = (Iterator<?>) (Object) iterator().invokeExact(deque);
+        while (it.hasNext()) {
+            if (it.next() != null)
+                count++;
+        }
+        return count;
+    }
+}
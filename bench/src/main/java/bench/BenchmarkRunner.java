@@ -0,0 +1,29 @@
+package bench;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with GC profiler attached, so allocation rates are
+ * reported along with the scores. Takes the usual JMH command line: include
+ * regular expressions, all benchmarks by default, and options like
+ * {@code -p n=64 -wi 1 -i 1 -f 1 -rf json}, e.g. for a regression run in CI
+ *
+ * @author Alexander Panko
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp()) {
+            cmdOptions.showHelp();
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class).build()).run();
+    }
+}
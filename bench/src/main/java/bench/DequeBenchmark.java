@@ -0,0 +1,43 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Iterator;
+
+/**
+ * Benchmarks {@code Deque}, the linked nodes deque, on the workload of
+ * {@code AbstractDequeBenchmark}
+ *
+ * @author Alexander Panko
+ */
+public class DequeBenchmark extends AbstractDequeBenchmark {
+    private static final MethodHandle NEW = Handles.constructor("Deque");
+    private static final MethodHandle ADD_FIRST = Handles.method("Deque", "addFirst", void.class, Object.class);
+    private static final MethodHandle ADD_LAST = Handles.method("Deque", "addLast", void.class, Object.class);
+    private static final MethodHandle REMOVE_FIRST = Handles.method("Deque", "removeFirst", Object.class);
+    private static final MethodHandle REMOVE_LAST = Handles.method("Deque", "removeLast", Object.class);
+    private static final MethodHandle ITERATOR = Handles.method("Deque", "iterator", Iterator.class);
+
+    MethodHandle newDeque() {
+        return NEW;
+    }
+
+    MethodHandle addFirst() {
+        return ADD_FIRST;
+    }
+
+    MethodHandle addLast() {
+        return ADD_LAST;
+    }
+
+    MethodHandle removeFirst() {
+        return REMOVE_FIRST;
+    }
+
+    MethodHandle removeLast() {
+        return REMOVE_LAST;
+    }
+
+    MethodHandle iterator() {
+        return ITERATOR;
+    }
+}
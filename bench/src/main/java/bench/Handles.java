@@ -0,0 +1,83 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Looks up method handles of the assignment classes. They live in the default
+ * package, which can't be referenced from benchmark code (and JMH refuses
+ * benchmarks in the default package), so benchmarks keep the handles in
+ * {@code static final} fields and JIT inlines them as direct calls. Reference
+ * types in the returned handles are erased to {@code Object}, so they can be
+ * called with {@code invokeExact}
+ *
+ * @author Alexander Panko
+ */
+final class Handles {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Handles() {
+    }
+
+    /**
+     * Returns the assignment class or interface, to be used as a parameter
+     * type of the looked up handles
+     *
+     * @param className - class name
+     * @return {@code Class}
+     */
+    static Class<?> type(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("No class " + className, e);
+        }
+    }
+
+    /**
+     * Returns handle of public constructor of the class
+     *
+     * @param className - class name
+     * @param params    - constructor parameter types
+     * @return {@code MethodHandle} of type (params) -> Object
+     */
+    static MethodHandle constructor(String className, Class<?>... params) {
+        try {
+            MethodHandle h = LOOKUP.findConstructor(Class.forName(className), MethodType.methodType(void.class, params));
+            return h.asType(erase(h.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No constructor in " + className, e);
+        }
+    }
+
+    /**
+     * Returns handle of public instance method of the class
+     *
+     * @param className  - class name
+     * @param name       - method name
+     * @param returnType - method return type
+     * @param params     - method parameter types
+     * @return {@code MethodHandle} of type (Object, params) -> returnType
+     */
+    static MethodHandle method(String className, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            MethodHandle h = LOOKUP.findVirtual(Class.forName(className), name,
+                    MethodType.methodType(returnType, params));
+            return h.asType(erase(h.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No method " + name + " in " + className, e);
+        }
+    }
+
+    private static MethodType erase(MethodType type) {
+        MethodType erased = type;
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (!type.parameterType(i).isPrimitive())
+                erased = erased.changeParameterType(i, Object.class);
+        }
+        if (!type.returnType().isPrimitive())
+            erased = erased.changeReturnType(Object.class);
+        return erased;
+    }
+}
@@ -0,0 +1,105 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@code LatticePercolation} opening sites or bonds of square and
+ * cubic lattices of about 2^18 sites up to different densities, the square
+ * lattice with hard edges in site mode is the same workload as
+ * {@code PercolationBenchmark.open} with n = 512
+ *
+ * @author Alexander Panko
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatticePercolationBenchmark {
+    private static final Class<?> LATTICE = Handles.type("Lattice");
+    private static final MethodHandle NEW_SQUARE = Handles.constructor("SquareLattice", int.class, boolean.class);
+    private static final MethodHandle NEW_CUBIC = Handles.constructor("CubicLattice", int.class, boolean.class);
+    private static final MethodHandle NEIGHBOUR = Handles.method("Lattice", "neighbour", int.class, int.class,
+            int.class);
+    private static final MethodHandle NEW = Handles.constructor("LatticePercolation", LATTICE, boolean.class);
+    private static final MethodHandle OPEN_SITE = Handles.method("LatticePercolation", "openSite", void.class,
+            int.class);
+    private static final MethodHandle OPEN_BOND = Handles.method("LatticePercolation", "openBond", void.class,
+            int.class, int.class);
+    private static final MethodHandle RESET = Handles.method("LatticePercolation", "reset", void.class);
+
+    @State(Scope.Thread)
+    public static class Grid {
+        @Param({ "square", "square-periodic", "cubic", "cubic-periodic" })
+        String lattice;
+
+        @Param({ "false", "true" })
+        boolean bonds;
+
+        @Param({ "0.3", "0.5", "0.6" })
+        double density;
+
+        Object grid;
+        int[] sites;
+        int[] axes;
+        int count;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws Throwable {
+            boolean periodic = lattice.endsWith("-periodic");
+            boolean cubic = lattice.startsWith("cubic");
+            Object l = cubic ? (Object) NEW_CUBIC.invokeExact(64, periodic)
+                    : (Object) NEW_SQUARE.invokeExact(512, periodic);
+            int len = 1 << 18;
+            int dims = cubic ? 3 : 2;
+            grid = (Object) NEW.invokeExact(l, bonds);
+
+            // existing elements: sites, or bonds not crossing hard edges
+            int[] order = new int[bonds ? len * dims : len];
+            int total = 0;
+            for (int e = 0; e < order.length; e++) {
+                if (!bonds || (int) NEIGHBOUR.invokeExact(l, e / dims, 2 * (e % dims)) >= 0)
+                    order[total++] = e;
+            }
+            int[] sample = Workloads.sample(order, total, density);
+
+            count = sample.length;
+            sites = new int[count];
+            axes = new int[count];
+            for (int i = 0; i < count; i++) {
+                sites[i] = bonds ? sample[i] / dims : sample[i];
+                axes[i] = bonds ? sample[i] % dims : 0;
+            }
+        }
+    }
+
+    // average cost of an open while the lattice fills up to the density, the
+    // lattice reset is amortized over the opens
+    @Benchmark
+    public void open(Grid g) throws Throwable {
+        if (g.next == g.count) {
+            RESET.invokeExact(g.grid);
+            g.next = 0;
+        }
+        if (g.bonds)
+            OPEN_BOND.invokeExact(g.grid, g.sites[g.next], g.axes[g.next]);
+        else
+            OPEN_SITE.invokeExact(g.grid, g.sites[g.next]);
+        g.next++;
+    }
+}
@@ -0,0 +1,121 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@code Percolation.open} on grids of different sizes filled up to
+ * different densities, the flood fill of {@code markAsFull} triggered by
+ * opening the top row of a pre-filled grid, and loading the whole batch of
+ * sites with {@code open} calls against a single {@code openAll}
+ *
+ * @author Alexander Panko
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercolationBenchmark {
+    private static final MethodHandle NEW = Handles.constructor("Percolation", int.class);
+    private static final MethodHandle OPEN = Handles.method("Percolation", "open", void.class, int.class, int.class);
+    private static final MethodHandle RESET = Handles.method("Percolation", "reset", void.class);
+    private static final MethodHandle OPEN_ALL = Handles.method("Percolation", "openAll", void.class, int[].class,
+            int[].class);
+    private static final MethodHandle PERCOLATES = Handles.method("Percolation", "percolates", boolean.class);
+
+    @State(Scope.Thread)
+    public static class Grid {
+        @Param({ "64", "512", "2048" })
+        int n;
+
+        @Param({ "0.3", "0.5", "0.6" })
+        double density;
+
+        Object grid;
+        int[] rows;
+        int[] cols;
+        int count;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws Throwable {
+            grid = (Object) NEW.invokeExact(n);
+
+            int len = n * n;
+            int[] order = new int[len];
+            for (int i = 0; i < len; i++)
+                order[i] = i;
+            int[] sample = Workloads.sample(order, len, density);
+
+            count = sample.length;
+            rows = new int[count];
+            cols = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = sample[i] / n + 1;
+                cols[i] = sample[i] % n + 1;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledBelowTopRow extends Grid {
+        @Setup(Level.Invocation)
+        public void fill() throws Throwable {
+            RESET.invokeExact(grid);
+            for (int i = 0; i < count; i++) {
+                if (rows[i] > 1)
+                    OPEN.invokeExact(grid, rows[i], cols[i]);
+            }
+        }
+    }
+
+    // average cost of an open while the grid fills up to the density, the
+    // grid reset is amortized over the opens
+    @Benchmark
+    public void open(Grid g) throws Throwable {
+        if (g.next == g.count) {
+            RESET.invokeExact(g.grid);
+            g.next = 0;
+        }
+        OPEN.invokeExact(g.grid, g.rows[g.next], g.cols[g.next]);
+        g.next++;
+    }
+
+    // opening the whole top row floods every open site connected to it
+    @Benchmark
+    public void floodFromTopRow(FilledBelowTopRow g) throws Throwable {
+        for (int col = 1; col <= g.n; col++)
+            OPEN.invokeExact(g.grid, 1, col);
+    }
+
+    // every open fills the sites connected to the top right away
+    @Benchmark
+    public boolean bulkLoad(Grid g) throws Throwable {
+        RESET.invokeExact(g.grid);
+        for (int i = 0; i < g.count; i++)
+            OPEN.invokeExact(g.grid, g.rows[i], g.cols[i]);
+        return (boolean) PERCOLATES.invokeExact(g.grid);
+    }
+
+    // the sites are filled once for the whole batch
+    @Benchmark
+    public boolean bulkLoadOpenAll(Grid g) throws Throwable {
+        RESET.invokeExact(g.grid);
+        OPEN_ALL.invokeExact(g.grid, (Object) g.rows, (Object) g.cols);
+        return (boolean) PERCOLATES.invokeExact(g.grid);
+    }
+}
@@ -0,0 +1,41 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks full {@code PercolationStats} runs
+ *
+ * @author Alexander Panko
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercolationStatsBenchmark {
+    private static final MethodHandle NEW = Handles.constructor("PercolationStats", int.class, int.class);
+
+    @Param({ "64", "256", "512" })
+    private int n;
+
+    @Param({ "10" })
+    private int trials;
+
+    @Benchmark
+    public Object trials() throws Throwable {
+        return (Object) NEW.invokeExact(n, trials);
+    }
+}
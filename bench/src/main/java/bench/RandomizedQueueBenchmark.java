@@ -0,0 +1,83 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@code RandomizedQueue} enqueue, dequeue, sample and iteration on
+ * a queue holding {@code size} items
+ *
+ * @author Alexander Panko
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomizedQueueBenchmark {
+    private static final MethodHandle NEW = Handles.constructor("RandomizedQueue");
+    private static final MethodHandle ENQUEUE = Handles.method("RandomizedQueue", "enqueue", void.class, Object.class);
+    private static final MethodHandle DEQUEUE = Handles.method("RandomizedQueue", "dequeue", Object.class);
+    private static final MethodHandle SAMPLE = Handles.method("RandomizedQueue", "sample", Object.class);
+    private static final MethodHandle ITERATOR = Handles.method("RandomizedQueue", "iterator", Iterator.class);
+
+    @Param({ "16", "1024", "65536" })
+    private int size;
+
+    private Object queue;
+    private Object item;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        queue = (Object) NEW.invokeExact();
+        for (int i = 0; i < size; i++) {
+            Object o = Integer.valueOf(i);
+            ENQUEUE.invokeExact(queue, o);
+        }
+        item = Integer.valueOf(-1);
+    }
+
+    @Benchmark
+    public Object enqueueDequeue() throws Throwable {
+        ENQUEUE.invokeExact(queue, item);
+        return (Object) DEQUEUE.invokeExact(queue);
+    }
+
+    @Benchmark
+    public Object sample() throws Throwable {
+        return (Object) SAMPLE.invokeExact(queue);
+    }
+
+    @Benchmark
+    public int iterate() throws Throwable {
+        int count = 0;
+        Iterator<?> it = (Iterator<?>) (Object) ITERATOR.invokeExact(queue);
+        while (it.hasNext()) {
+            if (it.next() != null)
+                count++;
+        }
+        return count;
+    }
+
+    // creating an iterator and taking its first item
+    @Benchmark
+    public Object iterateFirst() throws Throwable {
+        Iterator<?> it = (Iterator<?>) (Object) ITERATOR.invokeExact(queue);
+        return it.next();
+    }
+}
@@ -0,0 +1,43 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Iterator;
+
+/**
+ * Benchmarks {@code RingDeque} with the same workload as {@code DequeBenchmark}
+ * to compare the circular array against linked nodes
+ *
+ * @author Alexander Panko
+ */
+public class RingDequeBenchmark extends AbstractDequeBenchmark {
+    private static final MethodHandle NEW = Handles.constructor("RingDeque");
+    private static final MethodHandle ADD_FIRST = Handles.method("RingDeque", "addFirst", void.class, Object.class);
+    private static final MethodHandle ADD_LAST = Handles.method("RingDeque", "addLast", void.class, Object.class);
+    private static final MethodHandle REMOVE_FIRST = Handles.method("RingDeque", "removeFirst", Object.class);
+    private static final MethodHandle REMOVE_LAST = Handles.method("RingDeque", "removeLast", Object.class);
+    private static final MethodHandle ITERATOR = Handles.method("RingDeque", "iterator", Iterator.class);
+
+    MethodHandle newDeque() {
+        return NEW;
+    }
+
+    MethodHandle addFirst() {
+        return ADD_FIRST;
+    }
+
+    MethodHandle addLast() {
+        return ADD_LAST;
+    }
+
+    MethodHandle removeFirst() {
+        return REMOVE_FIRST;
+    }
+
+    MethodHandle removeLast() {
+        return REMOVE_LAST;
+    }
+
+    MethodHandle iterator() {
+        return ITERATOR;
+    }
+}
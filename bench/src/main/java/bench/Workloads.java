@@ -0,0 +1,37 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Setup shared by the benchmark workloads
+ *
+ * @author Alexander Panko
+ */
+final class Workloads {
+    private static final long SEED = 42;
+
+    private Workloads() {
+    }
+
+    /**
+     * Shuffles the first total elements in place with a fixed seed, so every
+     * run gets the same order, and returns their density fraction
+     *
+     * @param elements - elements, shuffled in place
+     * @param total    - count of elements to shuffle
+     * @param density  - fraction of the elements to return
+     * @return {@code int[]} of {@code (int) (density * total)} elements
+     */
+    static int[] sample(int[] elements, int total, double density) {
+        Random random = new Random(SEED);
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = tmp;
+        }
+        int[] sample = new int[(int) (density * total)];
+        System.arraycopy(elements, 0, sample, 0, sample.length);
+        return sample;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * N*N*N cubic lattice, site (z, y, x) has index {@code (z * n + y) * n + x}
+ * with 0-based coordinates. The flow goes along z, the other two axes
+ * optionally wrap around, making the lattice periodic in the lateral
+ * directions
+ *
+ * @author Alexander Panko
+ */
+public class CubicLattice implements Lattice {
+    private final int n, layer, len;
+    private final boolean periodic;
+
+    /**
+     * Creates N*N*N lattice
+     *
+     * @param n        - lattice's side length
+     * @param periodic - {@code true} to wrap x and y around
+     */
+    public CubicLattice(int n, boolean periodic) {
+        if (n <= 0 || (long) n * n * n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Size n must be between 1 and 1290");
+        this.n = n;
+        this.layer = n * n;
+        this.len = layer * n;
+        this.periodic = periodic;
+    }
+
+    /**
+     * Returns index of the site
+     *
+     * @param z - 0-based layer index, along the flow
+     * @param y - 0-based row index
+     * @param x - 0-based column index
+     * @return {@code int}
+     */
+    public int site(int z, int y, int x) {
+        if (z < 0 || y < 0 || x < 0 || z >= n || y >= n || x >= n)
+            throw new IllegalArgumentException(String.format("z, y and x must be between 0 and %d", n - 1));
+        return (z * n + y) * n + x;
+    }
+
+    public int sites() {
+        return len;
+    }
+
+    public int axes() {
+        return 3;
+    }
+
+    public int neighbour(int p, int dir) {
+        int c;
+        switch (dir) {
+        case 0:
+            return p < len - layer ? p + layer : -1;
+        case 1:
+            return p >= layer ? p - layer : -1;
+        case 2:
+            c = p / n % n;
+            if (c < n - 1)
+                return p + n;
+            return periodic ? p - c * n : -1;
+        case 3:
+            c = p / n % n;
+            if (c > 0)
+                return p - n;
+            return periodic ? p + (n - 1) * n : -1;
+        case 4:
+            c = p % n;
+            if (c < n - 1)
+                return p + 1;
+            return periodic ? p - c : -1;
+        case 5:
+            c = p % n;
+            if (c > 0)
+                return p - 1;
+            return periodic ? p + n - 1 : -1;
+        default:
+            throw new IllegalArgumentException("Direction must be between 0 and 5");
+        }
+    }
+
+    public boolean isTop(int p) {
+        return p < layer;
+    }
+
+    public boolean isBottom(int p) {
+        return p >= len - layer;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+/**
+ * This class implements union-find with union by size and path halving for
+ * the Percolation grid. Parent links and component sizes are packed into a
+ * single {@code int} array: a non-negative entry is the parent of the site, a
+ * negative entry marks a root and stores the negated size of its component
+ *
+ * @author Alexander Panko
+ */
+public class GridUnionFind {
+    /**
+     * {@code int} array of parent links, roots hold their negated size
+     */
+    private final int[] id;
+
+    /**
+     * Creates union-find structure with {@code n} sites, each site in its own
+     * component
+     *
+     * @param n - number of sites
+     */
+    public GridUnionFind(int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Number of sites n must be >= 1");
+        id = new int[n];
+        reset();
+    }
+
+    /**
+     * Returns the root of the component containing the site, halving the path
+     * on the way up
+     *
+     * @param p - site index
+     * @return {@code int} root site index
+     */
+    public int find(int p) {
+        int q;
+        int depth = 0;
+        while ((q = id[p]) >= 0) {
+            int r = id[q];
+            if (r < 0) {
+                p = q;
+                depth++;
+                break;
+            }
+            id[p] = r;
+            p = r;
+            depth += 2;
+        }
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.FIND_DEPTH.record(depth);
+        return p;
+    }
+
+    /**
+     * Shows if two sites are in the same component
+     *
+     * @param p - site index
+     * @param q - site index
+     * @return {@code true} if sites are connected, {@code false} if they aren't
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Merges components containing two sites
+     *
+     * @param p - site index
+     * @param q - site index
+     * @return {@code int} root of the merged component
+     */
+    public int union(int p, int q) {
+        int rp = find(p);
+        int rq = find(q);
+        if (rp == rq) {
+            if (PercolationMetrics.ENABLED)
+                PercolationMetrics.UNION_CALLS.increment();
+            return rp;
+        }
+        return link(rp, rq);
+    }
+
+    /**
+     * Merges two different components given by their roots without looking
+     * them up, for callers which already know the roots. The size of the
+     * merged component is {@code rootSize} of the returned root
+     *
+     * @param rp - root site index
+     * @param rq - root site index, not equal to {@code rp}
+     * @return {@code int} root of the merged component
+     */
+    int link(int rp, int rq) {
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.UNION_CALLS.increment();
+        // roots hold -size, so the smaller value has the larger size
+        if (id[rp] > id[rq]) {
+            id[rq] += id[rp];
+            id[rp] = rq;
+            return rq;
+        }
+        id[rp] += id[rq];
+        id[rq] = rp;
+        return rp;
+    }
+
+    /**
+     * Returns count of sites in the component containing the site
+     *
+     * @param p - site index
+     * @return {@code int}
+     */
+    public int componentSize(int p) {
+        return -id[find(p)];
+    }
+
+    /**
+     * Returns count of sites in the component of the root without looking it
+     * up
+     *
+     * @param root - root site index
+     * @return {@code int}
+     */
+    int rootSize(int root) {
+        return -id[root];
+    }
+
+    /**
+     * Returns all sites to their own components without reallocating
+     */
+    public void reset() {
+        Arrays.fill(id, -1);
+    }
+
+    /**
+     * Returns the site to its own component. It's up to caller to reset all
+     * the sites of the component, otherwise the structure becomes inconsistent
+     *
+     * @param p - site index
+     */
+    public void reset(int p) {
+        id[p] = -1;
+    }
+
+    /**
+     * Returns raw entry of the site: parent link, or negated size for a root
+     *
+     * @param p - site index
+     * @return {@code int}
+     */
+    int parent(int p) {
+        return id[p];
+    }
+
+    /**
+     * Returns count of sites
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        return id.length;
+    }
+
+    // memory and latency comparison against WeightedQuickUnionUF on a grid
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int len = n * n;
+        int ops = len / 2;
+
+        int[] sites = new int[ops];
+        for (int i = 0; i < ops; i++)
+            sites[i] = StdRandom.uniform(len);
+
+        StdOut.printf("grid %d x %d, %d random neighbour unions, memory is computed from array sizes, not measured\n",
+                n, n, ops);
+        StdOut.printf("%-22s %12s %12s\n", "", "arrays, MB", "time, ms");
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            WeightedQuickUnionUF w = new WeightedQuickUnionUF(len);
+            for (int p : sites) {
+                if (p % n != 0)
+                    w.union(p, p - 1);
+                if (p >= n)
+                    w.union(p, p - n);
+                w.connected(p, 0);
+            }
+            long wqu = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            GridUnionFind g = new GridUnionFind(len);
+            for (int p : sites) {
+                if (p % n != 0)
+                    g.union(p, p - 1);
+                if (p >= n)
+                    g.union(p, p - n);
+                g.connected(p, 0);
+            }
+            long grid = System.nanoTime() - start;
+
+            StdOut.printf("%-22s %12.1f %12.1f\n", "WeightedQuickUnionUF", 8.0 * len / (1 << 20), wqu / 1e6);
+            StdOut.printf("%-22s %12.1f %12.1f\n", "GridUnionFind", 4.0 * len / (1 << 20), grid / 1e6);
+        }
+    }
+}
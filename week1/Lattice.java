@@ -0,0 +1,51 @@
+/**
+ * Lattice of sites for {@code LatticePercolation}. Sites are numbered from 0
+ * to {@code sites() - 1}, neighbours are found with stride arithmetic, so the
+ * lattice takes no memory for neighbour tables. Axis 0 is the direction of
+ * the flow: liquid enters at the top layer of the lattice, and the lattice
+ * percolates when liquid reaches the bottom layer. Direction {@code 2k} is
+ * the positive direction of axis k, {@code 2k + 1} is the negative one
+ *
+ * @author Alexander Panko
+ */
+public interface Lattice {
+    /**
+     * Returns count of sites
+     *
+     * @return {@code int}
+     */
+    int sites();
+
+    /**
+     * Returns count of axes, each site has at most {@code 2 * axes()}
+     * neighbours
+     *
+     * @return {@code int}
+     */
+    int axes();
+
+    /**
+     * Returns neighbour of the site in the given direction
+     *
+     * @param p   - site index
+     * @param dir - direction between 0 and {@code 2 * axes() - 1}
+     * @return {@code int} neighbour's index, or -1 at a hard edge
+     */
+    int neighbour(int p, int dir);
+
+    /**
+     * Shows if the site is in the top layer
+     *
+     * @param p - site index
+     * @return {@code true} if the site is in the top layer
+     */
+    boolean isTop(int p);
+
+    /**
+     * Shows if the site is in the bottom layer
+     *
+     * @param p - site index
+     * @return {@code true} if the site is in the bottom layer
+     */
+    boolean isBottom(int p);
+}
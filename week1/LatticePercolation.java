@@ -0,0 +1,285 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * This class solves the Percolation problem on any {@code Lattice}: square or
+ * cubic, with hard or periodic lateral edges, for site or bond percolation.
+ * In site mode sites are opened and connect to their open neighbours, in
+ * bond mode all sites are open and bonds between neighbouring sites are
+ * opened.
+ * <p>
+ * Open clusters are kept in {@code GridUnionFind} with virtual top site, a
+ * site is full if it's connected to the virtual top. Instead of virtual
+ * bottom, which would let liquid flow back up to the sites connected only to
+ * the bottom, each root keeps a flag showing that its cluster touches the
+ * bottom layer, and the lattice percolates if the virtual top's cluster does.
+ * {@code Percolation} stays the fast path for the square lattice with hard
+ * edges
+ *
+ * @author Alexander Panko
+ */
+public class LatticePercolation {
+    private final Lattice lattice;
+    private final boolean bonds;
+    private final int len, axes;
+
+    private final GridUnionFind qf;
+    private final int virtualTop;
+
+    /**
+     * Flags of roots whose clusters touch the bottom layer, indexed by site
+     */
+    private final boolean[] bottom;
+
+    /**
+     * Flag of the virtual top's cluster, the virtual top has no entry in
+     * bottom
+     */
+    private boolean topTouchesBottom;
+
+    /**
+     * Open sites in site mode, open bonds in bond mode, bond of site p along
+     * axis k has index {@code p * axes + k}
+     */
+    private final boolean[] open;
+
+    /**
+     * Indexes of opened sites or bonds in the order they were opened, used to
+     * reset only the touched sites
+     */
+    private final int[] opened;
+    private int openedCount;
+
+    /**
+     * Creates the lattice with all sites or bonds initially blocked
+     *
+     * @param lattice - the lattice
+     * @param bonds   - {@code true} for bond percolation, {@code false} for site
+     *                percolation
+     */
+    public LatticePercolation(Lattice lattice, boolean bonds) {
+        if (lattice == null)
+            throw new IllegalArgumentException();
+        this.lattice = lattice;
+        this.bonds = bonds;
+        len = lattice.sites();
+        axes = lattice.axes();
+        if (bonds && (long) len * axes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many bonds in the lattice");
+
+        qf = new GridUnionFind(len + 1);
+        virtualTop = len;
+        bottom = new boolean[len];
+        open = new boolean[bonds ? len * axes : len];
+        opened = new int[open.length];
+        if (bonds) {
+            for (int p = 0; p < len; p++)
+                bottom[p] = lattice.isBottom(p);
+        }
+    }
+
+    /**
+     * Opens the site in site mode, if it is not open already
+     *
+     * @param p - site index
+     */
+    public void openSite(int p) {
+        if (bonds)
+            throw new UnsupportedOperationException("Sites are always open in bond mode");
+        validate(p);
+        if (open[p])
+            return;
+        open[p] = true;
+        opened[openedCount++] = p;
+        bottom[p] = lattice.isBottom(p);
+
+        if (lattice.isTop(p))
+            union(p, virtualTop);
+        for (int dir = 0; dir < 2 * axes; dir++) {
+            int q = lattice.neighbour(p, dir);
+            if (q >= 0 && open[q])
+                union(p, q);
+        }
+    }
+
+    /**
+     * Opens the bond between the site and its neighbour in the positive
+     * direction of the axis in bond mode, if it is not open already
+     *
+     * @param p    - site index
+     * @param axis - axis index
+     */
+    public void openBond(int p, int axis) {
+        if (!bonds)
+            throw new UnsupportedOperationException("Bonds are always open in site mode");
+        int q = bondEnd(p, axis);
+        int bond = p * axes + axis;
+        if (open[bond])
+            return;
+        open[bond] = true;
+        opened[openedCount++] = bond;
+
+        if (lattice.isTop(p))
+            union(p, virtualTop);
+        if (lattice.isTop(q))
+            union(q, virtualTop);
+        union(p, q);
+    }
+
+    // merges the clusters keeping the bottom flag on the new root
+    private void union(int p, int q) {
+        boolean touches = touchesBottom(qf.find(p)) || touchesBottom(qf.find(q));
+        int root = qf.union(p, q);
+        if (root != virtualTop)
+            bottom[root] = touches;
+        else
+            topTouchesBottom = touches;
+    }
+
+    private boolean touchesBottom(int root) {
+        return root == virtualTop ? topTouchesBottom : bottom[root];
+    }
+
+    /**
+     * Returns the lattice to the state with all sites or bonds blocked.
+     * Touches only the sites opened since creation or the last reset
+     */
+    public void reset() {
+        for (int i = 0; i < openedCount; i++) {
+            int e = opened[i];
+            open[e] = false;
+            if (bonds) {
+                int p = e / axes;
+                int q = lattice.neighbour(p, 2 * (e % axes));
+                qf.reset(p);
+                qf.reset(q);
+                bottom[p] = lattice.isBottom(p);
+                bottom[q] = lattice.isBottom(q);
+            } else {
+                qf.reset(e);
+            }
+        }
+        qf.reset(virtualTop);
+        topTouchesBottom = false;
+        openedCount = 0;
+    }
+
+    /**
+     * Shows if the lattice percolates
+     *
+     * @return {@code true} if the lattice percolates, {@code false} if it
+     *         doesn't
+     */
+    public boolean percolates() {
+        // a single layer lattice percolates through any top site open
+        if (bonds && lattice.isBottom(0))
+            return true;
+        return touchesBottom(qf.find(virtualTop));
+    }
+
+    /**
+     * Shows if the site is open, all sites are open in bond mode
+     *
+     * @param p - site index
+     * @return {@code true} if site is open, {@code false} if it's not
+     */
+    public boolean isOpen(int p) {
+        validate(p);
+        return bonds || open[p];
+    }
+
+    /**
+     * Shows if the bond between the site and its neighbour in the positive
+     * direction of the axis is open, all bonds are open in site mode
+     *
+     * @param p    - site index
+     * @param axis - axis index
+     * @return {@code true} if bond is open, {@code false} if it's not
+     */
+    public boolean isBondOpen(int p, int axis) {
+        bondEnd(p, axis);
+        return !bonds || open[p * axes + axis];
+    }
+
+    /**
+     * Shows if the site is full with liquid
+     *
+     * @param p - site index
+     * @return {@code true} if site is full, {@code false} if it's not
+     */
+    public boolean isFull(int p) {
+        validate(p);
+        if (bonds)
+            return lattice.isTop(p) || qf.connected(p, virtualTop);
+        return open[p] && qf.connected(p, virtualTop);
+    }
+
+    /**
+     * Returns count of opened sites in site mode or opened bonds in bond mode
+     *
+     * @return {@code int}
+     */
+    public int numberOfOpened() {
+        return openedCount;
+    }
+
+    private int bondEnd(int p, int axis) {
+        validate(p);
+        if (axis < 0 || axis >= axes)
+            throw new IllegalArgumentException(String.format("axis must be between 0 and %d", axes - 1));
+        int q = lattice.neighbour(p, 2 * axis);
+        if (q < 0)
+            throw new IllegalArgumentException("No bond across the edge of the lattice");
+        return q;
+    }
+
+    private void validate(int p) {
+        if (p < 0 || p >= len)
+            throw new IllegalArgumentException(String.format("site must be between 0 and %d", len - 1));
+    }
+
+    // estimates percolation thresholds of the lattices by opening random
+    // sites or bonds until they percolate
+    public static void main(String[] args) {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Lattice[] lattices = { new SquareLattice(128, false), new SquareLattice(128, true),
+            new CubicLattice(32, false), new CubicLattice(32, true) };
+        String[] names = { "square", "square periodic", "cubic", "cubic periodic" };
+
+        for (int i = 0; i < lattices.length; i++) {
+            Lattice lattice = lattices[i];
+            for (boolean bonds : new boolean[] { false, true }) {
+                LatticePercolation perc = new LatticePercolation(lattice, bonds);
+                int elements = bonds ? lattice.sites() * lattice.axes() : lattice.sites();
+                double sum = 0;
+                for (int t = 0; t < trials; t++) {
+                    perc.reset();
+                    while (!perc.percolates()) {
+                        int e = StdRandom.uniform(elements);
+                        if (!bonds) {
+                            perc.openSite(e);
+                        } else if (lattice.neighbour(e / lattice.axes(), 2 * (e % lattice.axes())) >= 0) {
+                            perc.openBond(e / lattice.axes(), e % lattice.axes());
+                        }
+                    }
+                    // fraction of existing sites or bonds, edges have no bonds outside
+                    sum += (double) perc.numberOfOpened() / existing(lattice, bonds);
+                }
+                StdOut.printf("%-16s %-5s threshold %.4f\n", names[i], bonds ? "bond" : "site", sum / trials);
+            }
+        }
+    }
+
+    private static int existing(Lattice lattice, boolean bonds) {
+        if (!bonds)
+            return lattice.sites();
+        int count = 0;
+        for (int p = 0; p < lattice.sites(); p++) {
+            for (int axis = 0; axis < lattice.axes(); axis++) {
+                if (lattice.neighbour(p, 2 * axis) >= 0)
+                    count++;
+            }
+        }
+        return count;
+    }
+}
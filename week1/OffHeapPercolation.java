@@ -0,0 +1,374 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * This class solves the "real world" Percolation problem for grids which
+ * don't fit the Java heap. The grid is kept bit-packed, 2 bits per site, in a
+ * memory-mapped file, sites are indexed with {@code long}, so the grid's side
+ * length is limited only by the file size. Mapped memory counts neither
+ * against -Xmx nor against the direct memory limit, and pages of the grid are
+ * swapped by OS as needed. Like {@code PackedPercolation} it doesn't keep
+ * union-find, a site is full if it is in the top row or has a full neighbour.
+ * <p>
+ * The grid is backed by a temporary file deleted on close, or by the given
+ * file which keeps the grid between runs: {@code flush} writes it to the
+ * disk, and opening the same file later restores the grid without
+ * rebuilding it.
+ * <p>
+ * The grid is changed in place, so pages written between flushes may reach
+ * the disk before the header. The header keeps a dirty flag, which is forced
+ * to the disk before the first change after a flush and cleared by
+ * {@code flush}. A grid reopened with the flag set wasn't flushed after the
+ * last changes, e.g. the process was killed, so its counters are rebuilt from
+ * the sites and the liquid is poured again from the open top row sites,
+ * which also completes a flood fill cut off mid-way
+ *
+ * @author Alexander Panko
+ */
+public class OffHeapPercolation implements AutoCloseable {
+    private static final long MAGIC = 0x5045524346494c45L;
+    private static final int HEADER = 4096;
+    private static final int CHUNK_BITS = 30;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+
+    private static final int sOpen = 1;
+    private static final int sFull = 2;
+
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int size;
+
+    /**
+     * {@code long} variable representing the grid's sites count
+     */
+    private final long len;
+
+    /**
+     * {@code long} variable representing the grid's opened sites count
+     */
+    private long openedCount;
+
+    /**
+     * {@code boolean} variable representing if the grid perculates or not
+     */
+    private boolean percolates;
+
+    /**
+     * {@code boolean} variable showing if the grid was changed since the
+     * last flush
+     */
+    private boolean dirty;
+
+    private final Path file;
+    private final boolean temporary;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    /**
+     * Memory-mapped chunks of the grid, 4 sites per byte
+     */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Array used as stack to traverse the grid in markAsFull, holds one site
+     * per run of open sites next to a filled span, grows on demand
+     */
+    private long[] stack = new long[64];
+
+    /**
+     * Creates N*N grid with all sites initially blocked backed by temporary
+     * file
+     *
+     * @param n - grid's side length
+     */
+    public OffHeapPercolation(int n) throws IOException {
+        this(n, Files.createTempFile("percolation", ".grid"), true);
+    }
+
+    /**
+     * Creates N*N grid backed by the file, if the file already holds the grid
+     * of the same size it is restored
+     *
+     * @param n    - grid's side length
+     * @param file - backing file
+     */
+    public OffHeapPercolation(int n, Path file) throws IOException {
+        this(n, file, false);
+    }
+
+    private OffHeapPercolation(int n, Path file, boolean temporary) throws IOException {
+        if (n <= 0)
+            throw new IllegalArgumentException("Size n must be >= 1");
+        size = n;
+        len = (long) n * n;
+        this.file = file;
+        this.temporary = temporary;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean restore = channel.size() > 0;
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        if (restore) {
+            if (header.getLong(0) != MAGIC)
+                throw new IllegalArgumentException(file + " doesn't hold a percolation grid");
+            if (header.getInt(8) != n)
+                throw new IllegalArgumentException(file + " holds the grid of size " + header.getInt(8));
+            openedCount = header.getLong(12);
+            percolates = header.get(20) != 0;
+            dirty = header.get(21) != 0;
+        }
+
+        long bytes = (len + 3) >>> 2;
+        chunks = new MappedByteBuffer[(int) ((bytes + CHUNK - 1) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            long from = (long) i << CHUNK_BITS;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + from, Math.min(CHUNK, bytes - from));
+        }
+
+        if (!restore)
+            writeHeader();
+        else if (dirty)
+            recover();
+    }
+
+    // rebuilds the counters and the full sites of the grid which wasn't
+    // flushed after the last changes
+    private void recover() {
+        openedCount = 0;
+        percolates = false;
+        for (MappedByteBuffer chunk : chunks) {
+            for (int i = 0; i < chunk.limit(); i++) {
+                int b = chunk.get(i);
+                // any non-zero state becomes open
+                int open = (b | (b >>> 1)) & 0x55;
+                chunk.put(i, (byte) open);
+                openedCount += Integer.bitCount(open);
+            }
+        }
+        for (long p = 0; p < size; p++) {
+            if (get(p) == sOpen)
+                markAsFull(p);
+        }
+        flush();
+    }
+
+    // the flag must be on the disk before any changed page of the grid
+    private void markDirty() {
+        dirty = true;
+        header.put(21, (byte) 1);
+        header.force();
+    }
+
+    /**
+     * Opens the site if it is not open already
+     *
+     * @param row - row index
+     * @param col - col index
+     */
+    public void open(int row, int col) {
+        validate(row, col);
+
+        long cur = pos(row, col);
+        if (get(cur) != 0)
+            return;
+
+        if (!dirty)
+            markDirty();
+        set(cur, sOpen);
+        openedCount++;
+
+        if (row == 1
+                || (col > 1 && get(cur - 1) == sFull)
+                || (col < size && get(cur + 1) == sFull)
+                || (row > 1 && get(cur - size) == sFull)
+                || (row < size && get(cur + size) == sFull))
+            markAsFull(cur);
+    }
+
+    private void markAsFull(long seed) {
+        int top = 0;
+        stack[top++] = seed;
+
+        while (top > 0) {
+            long p = stack[--top];
+            if (get(p) != sOpen)
+                continue;
+
+            long rowStart = p - p % size;
+            long rowEnd = rowStart + size;
+            long l = p;
+            long r = p + 1;
+            while (l > rowStart && get(l - 1) == sOpen)
+                l--;
+            while (r < rowEnd && get(r) == sOpen)
+                r++;
+
+            for (long q = l; q < r; q++)
+                set(q, sFull);
+
+            if (rowStart > 0)
+                top = pushOpenRuns(l - size, r - size, top);
+            if (rowEnd < len)
+                top = pushOpenRuns(l + size, r + size, top);
+            else
+                percolates = true;
+        }
+    }
+
+    // pushes the first site of every run of open sites in [from, to)
+    private int pushOpenRuns(long from, long to, int top) {
+        boolean run = false;
+        for (long q = from; q < to; q++) {
+            boolean open = get(q) == sOpen;
+            if (open && !run) {
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, top << 1);
+                stack[top++] = q;
+            }
+            run = open;
+        }
+        return top;
+    }
+
+    private int get(long pos) {
+        long b = pos >>> 2;
+        int v = chunks[(int) (b >>> CHUNK_BITS)].get((int) (b & (CHUNK - 1)));
+        return (v >>> ((int) (pos & 3) << 1)) & 3;
+    }
+
+    private void set(long pos, int state) {
+        long b = pos >>> 2;
+        MappedByteBuffer chunk = chunks[(int) (b >>> CHUNK_BITS)];
+        int i = (int) (b & (CHUNK - 1));
+        int shift = (int) (pos & 3) << 1;
+        chunk.put(i, (byte) ((chunk.get(i) & ~(3 << shift)) | (state << shift)));
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates, {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Shows if the site with given column and row is open
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is open, {@code false} if it's not
+     */
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+        return get(pos(row, col)) != 0;
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is full, {@code false} if it's not
+     */
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+        return get(pos(row, col)) == sFull;
+    }
+
+    /**
+     * Returns count of opened sites
+     *
+     * @return {@code long}
+     */
+    public long numberOfOpenSites() {
+        return openedCount;
+    }
+
+    /**
+     * Writes the grid to the backing file, the header is marked clean only
+     * after all the sites are on the disk
+     */
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks)
+            chunk.force();
+        dirty = false;
+        writeHeader();
+        header.force();
+    }
+
+    /**
+     * Flushes the grid and closes the backing file, temporary file is deleted
+     */
+    public void close() throws IOException {
+        if (temporary) {
+            channel.close();
+            Files.deleteIfExists(file);
+        } else {
+            flush();
+            channel.close();
+        }
+    }
+
+    private void writeHeader() {
+        header.putLong(0, MAGIC);
+        header.putInt(8, size);
+        header.putLong(12, openedCount);
+        header.put(20, (byte) (percolates ? 1 : 0));
+        header.put(21, (byte) (dirty ? 1 : 0));
+    }
+
+    private long pos(int row, int col) {
+        return (long) (row - 1) * size + col - 1;
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || col < 1 || row > size || col > size)
+            throw new IllegalArgumentException(String.format("row and col must be between 1 and %d", size));
+    }
+
+    // opens random sites until the grid percolates, flushing it every
+    // checkpoint opens when backed by the file
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            StdOut.println("Usage: java OffHeapPercolation n [file [checkpoint]]");
+            StdOut.println("Where:");
+            StdOut.println("  n          - grid size, should be >= 1");
+            StdOut.println("  file       - backing file, the run continues if it holds the grid");
+            StdOut.println("  checkpoint - number of opens between flushes, defaults to 10^8");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        long checkpoint = args.length > 2 ? Long.parseLong(args[2]) : 100000000L;
+
+        SplittableRandom random = new SplittableRandom();
+        long start = System.nanoTime();
+        try (OffHeapPercolation p = args.length > 1 ? new OffHeapPercolation(n, Paths.get(args[1]))
+                : new OffHeapPercolation(n)) {
+            StdOut.printf("Starting with %d open sites\n", p.numberOfOpenSites());
+            long opens = 0;
+            while (!p.percolates()) {
+                p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+                if (args.length > 1 && ++opens % checkpoint == 0) {
+                    p.flush();
+                    StdOut.printf("Checkpoint: %d open sites\n", p.numberOfOpenSites());
+                }
+            }
+            StdOut.printf("Percolates with %d open sites, threshold %f\n", p.numberOfOpenSites(),
+                    (double) p.numberOfOpenSites() / ((double) n * n));
+        }
+        StdOut.printf("Elapsed time %.3f s\n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * This class solves the "real world" Percolation problem keeping the grid
+ * bit-packed: 2 bits per site in a {@code long} array, 32 sites per word.
+ * Unlike {@code Percolation} it doesn't keep union-find at all, a newly
+ * opened site is full if it is in the top row or has a full neighbour, and
+ * then it's enough to flood its open neighbours. The flood fill goes by row
+ * spans and checks the rows above and below a whole word at a time
+ *
+ * @author Alexander Panko
+ */
+public class PackedPercolation {
+    /**
+     * {@code int} variables representing the grid's side length and sites count
+     */
+    private final int size, len;
+
+    /**
+     * {@code int} variable representing the grid's opened sites count
+     */
+    private int openedCount;
+
+    /**
+     * {@code long} array representing the state of the grid, 2 bits per site
+     */
+    private final long[] state;
+    private static final int sOpen = 1;
+    private static final int sFull = 2;
+
+    /**
+     * {@code long} mask with the low bit of every site set
+     */
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    /**
+     * {@code boolean} variable representing if the grid perculates or not
+     */
+    private boolean percolates;
+
+    /**
+     * Array used as stack to traverse the grid in markAsFull, grows on demand
+     */
+    private int[] stack = new int[64];
+
+    /**
+     * Takes {@code int} variable and creates N*N grid with all sites initially
+     * blocked
+     *
+     * @param n - grid's side length
+     */
+    public PackedPercolation(int n) {
+        if (n <= 0 || (long) n * n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Size n must be between 1 and 46340");
+        size = n;
+        len = size * size;
+        state = new long[(len + 31) >>> 5];
+    }
+
+    /**
+     * Opens the site if it is not open already
+     *
+     * @param row - row index
+     * @param col - col index
+     */
+    public void open(int row, int col) {
+        validate(row, col);
+
+        int cur = (row - 1) * size + col - 1;
+        if (get(cur) != 0)
+            return;
+
+        state[cur >>> 5] |= (long) sOpen << ((cur & 31) << 1);
+        openedCount++;
+
+        if (row == 1
+                || (col > 1 && get(cur - 1) == sFull)
+                || (col < size && get(cur + 1) == sFull)
+                || (row > 1 && get(cur - size) == sFull)
+                || (row < size && get(cur + size) == sFull))
+            markAsFull(cur);
+    }
+
+    private void markAsFull(int seed) {
+        int top = 0;
+        stack[top++] = seed;
+
+        while (top > 0) {
+            int p = stack[--top];
+            if (get(p) != sOpen)
+                continue;
+
+            int rowStart = p - p % size;
+            int rowEnd = rowStart + size;
+            int l = p;
+            int r = p + 1;
+            while (l > rowStart && get(l - 1) == sOpen)
+                l--;
+            while (r < rowEnd && get(r) == sOpen)
+                r++;
+
+            setFull(l, r);
+
+            if (rowStart > 0)
+                top = pushOpenRuns(l - size, r - size, top);
+            if (rowEnd < len)
+                top = pushOpenRuns(l + size, r + size, top);
+            else
+                percolates = true;
+        }
+    }
+
+    // marks open sites [from, to) as full, flipping 01 to 10 a word at a time
+    private void setFull(int from, int to) {
+        for (int w = from >>> 5; w <= (to - 1) >>> 5; w++)
+            state[w] ^= mask(w, from, to);
+    }
+
+    // pushes the first site of every run of open sites in [from, to)
+    private int pushOpenRuns(int from, int to, int top) {
+        for (int w = from >>> 5; w <= (to - 1) >>> 5; w++) {
+            long word = state[w];
+            long open = word & ~(word >>> 1) & LOW_BITS & mask(w, from, to);
+            while (open != 0) {
+                int bit = Long.numberOfTrailingZeros(open);
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, top << 1);
+                stack[top++] = (w << 5) + (bit >>> 1);
+
+                // skip the rest of the run
+                int run = Long.numberOfTrailingZeros(~(open >>> bit) & LOW_BITS);
+                open = bit + run >= 64 ? 0 : open & (-1L << (bit + run));
+            }
+        }
+        return top;
+    }
+
+    // bits of word w covering sites [from, to)
+    private static long mask(int w, int from, int to) {
+        int lo = Math.max(from - (w << 5), 0);
+        int hi = Math.min(to - (w << 5), 32);
+        long bits = hi - lo == 32 ? -1L : (1L << ((hi - lo) << 1)) - 1;
+        return bits << (lo << 1);
+    }
+
+    private int get(int pos) {
+        return (int) (state[pos >>> 5] >>> ((pos & 31) << 1)) & 3;
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates, {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Shows if the site with given column and row is open
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is open, {@code false} if it's not
+     */
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+        return get((row - 1) * size + col - 1) != 0;
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is full, {@code false} if it's not
+     */
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+        return get((row - 1) * size + col - 1) == sFull;
+    }
+
+    /**
+     * Returns count of opened sites
+     *
+     * @return {@code int}
+     */
+    public int numberOfOpenSites() {
+        return openedCount;
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || col < 1 || row > size || col > size)
+            throw new IllegalArgumentException(String.format("row and col must be between 1 and %d", size));
+    }
+
+    // benchmark against byte layout of Percolation
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long len = (long) n * n;
+
+        StdOut.printf("grid %d x %d, %d trials, memory is computed from array sizes, not measured\n", n, n, trials);
+        StdOut.printf("%-18s %12s %12s %10s\n", "", "arrays, MB", "time, ms", "threshold");
+
+        for (int round = 0; round < 3; round++) {
+            long opened = 0;
+            long start = System.nanoTime();
+            for (int t = 0; t < trials; t++) {
+                Percolation p = new Percolation(n);
+                while (!p.percolates())
+                    p.open(StdRandom.uniform(n) + 1, StdRandom.uniform(n) + 1);
+                opened += p.numberOfOpenSites();
+            }
+            long byteLayout = System.nanoTime() - start;
+            // state, union-find, flood fill stack and opened sites log
+            StdOut.printf("%-18s %12.1f %12.1f %10.4f\n", "Percolation",
+                    11.0 * len / (1 << 20), byteLayout / 1e6, (double) opened / trials / len);
+
+            opened = 0;
+            start = System.nanoTime();
+            for (int t = 0; t < trials; t++) {
+                PackedPercolation p = new PackedPercolation(n);
+                while (!p.percolates())
+                    p.open(StdRandom.uniform(n) + 1, StdRandom.uniform(n) + 1);
+                opened += p.numberOfOpenSites();
+            }
+            long packed = System.nanoTime() - start;
+            StdOut.printf("%-18s %12.1f %12.1f %10.4f\n", "PackedPercolation",
+                    len / 4.0 / (1 << 20), packed / 1e6, (double) opened / trials / len);
+        }
+    }
+}
@@ -1,8 +1,13 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
- * This class solves the "real world" Percolation problem using weighted quick
- * union-find algorithm
+ * This class solves the "real world" Percolation problem using union-find
+ * algorithm with union by size and path halving. Component sizes keep
+ * cluster statistics up to date on every open: count of clusters, the
+ * largest cluster and optionally count of clusters of each size
  *
  * @author Alexander Panko
  */
@@ -17,6 +22,13 @@ public class Percolation {
      */
     private int openedCount;
 
+    /**
+     * {@code int} variable representing count of resets since creation, so
+     * a checkpoint can tell the grid it saved from a new trial on the same
+     * object
+     */
+    private int generation;
+
     /**
      * {@code byte} array representing the state of the grid
      */
@@ -30,22 +42,58 @@ public class Percolation {
     private boolean percolates;
 
     /**
-     * Variable representing {@code WeightedQuickUnionUF} class which implements
-     * weighted quick union-find algorithm, uses 2 virtual sites top and bottom to
-     * calculate perculation
+     * Variable representing {@code GridUnionFind} class which implements
+     * union-find algorithm over the open sites only, so its components are
+     * the clusters. A site is full if it's in the top row or next to a full
+     * site, there is no virtual top site
+     */
+    private final GridUnionFind qf;
+
+    /**
+     * {@code int} variables representing count of clusters and size of the
+     * largest one
+     */
+    private int clusterCount, largestCluster;
+
+    /**
+     * Count of clusters of each size, indexed by size, {@code null} unless
+     * requested
+     */
+    private final int[] histogram;
+
+    /**
+     * Sizes of the clusters merged by the last opened site, kept with the
+     * histogram only, so a site next to none of the clusters merges none
+     */
+    private final int[] merged;
+    private int mergedCount;
+
+    /**
+     * Array used as stack to traverse the grid in markAsFull. A site is
+     * pushed only once it is full, so the stack never holds more than all the
+     * sites, it starts at half of them and grows when a deferred fill of many
+     * sites at once needs more
+     */
+    private int[] stack;
+
+    /**
+     * Array holding indexes of opened sites in the order they were opened, used
+     * to reset only the touched sites
      */
-    private final WeightedQuickUnionUF qf;
+    private final int[] opened;
 
     /**
-     * {@code int} variable representing the reserved virtual top site index. It is
-     * used for simplified union with top/bottom row of the grid
+     * {@code boolean} variable showing if filling the sites with liquid is
+     * deferred until the next {@code isFull} or {@code percolates} query
      */
-    private final int virtualTop;
+    private boolean deferred;
 
     /**
-     * Array used as stack to traverse the grid in markAsFull
+     * {@code int} variable representing count of opened sites which are
+     * already filled with liquid if they should be, the rest are filled by
+     * {@code propagate}
      */
-    private final int[] stack;
+    private int propagated;
 
     /**
      * Takes {@code int} variable and creates N*N grid with all sites initially
@@ -54,18 +102,84 @@ public class Percolation {
      * @param n - grid's side length
      */
     public Percolation(int n) {
+        this(n, false);
+    }
+
+    /**
+     * Creates N*N grid with all sites initially blocked, optionally keeping
+     * count of clusters of each size, which takes extra 4 bytes per site
+     *
+     * @param n         - grid's side length
+     * @param histogram - {@code true} to keep cluster size histogram
+     */
+    public Percolation(int n, boolean histogram) {
         if (n <= 0)
             throw new IllegalArgumentException("Size n must be >= 1");
         size = n;
         len = size * size;
 
         state = new byte[len];
-        qf = new WeightedQuickUnionUF(len + 1); // 1 extra for virtual top
-
-        virtualTop = len;
+        qf = new GridUnionFind(len);
+        this.histogram = histogram ? new int[len + 1] : null;
+        merged = histogram ? new int[4] : null;
 
-        // For current implementation of markAsFull it's enough
+        // enough for fills of single opened sites, grows for deferred fills
         stack = new int[len > 1 ? len / 2 : 1];
+        opened = new int[len];
+    }
+
+    /**
+     * Returns the grid to the state with all sites blocked. Touches only the
+     * sites opened since creation or the last reset
+     */
+    public void reset() {
+        for (int i = 0; i < openedCount; i++) {
+            int p = opened[i];
+            // every non-zero entry of the histogram is the size of some root
+            if (histogram != null && qf.parent(p) < 0)
+                histogram[qf.componentSize(p)] = 0;
+            state[p] = 0;
+            qf.reset(p);
+        }
+        openedCount = 0;
+        generation++;
+        clusterCount = 0;
+        largestCluster = 0;
+        propagated = 0;
+        percolates = false;
+    }
+
+    /**
+     * Switches deferred mode. In deferred mode {@code open} only connects the
+     * site with its neighbours, and sites are filled with liquid all at once
+     * on the next {@code isFull} or {@code percolates} query. Switching the
+     * mode off fills the pending sites
+     *
+     * @param deferred - {@code true} to defer filling
+     */
+    public void setDeferred(boolean deferred) {
+        if (!deferred)
+            propagate();
+        this.deferred = deferred;
+    }
+
+    /**
+     * Opens all the given sites filling them with liquid once for the whole
+     * batch, in deferred mode filling waits for the next query
+     *
+     * @param rows - row indexes
+     * @param cols - column indexes, same length as rows
+     */
+    public void openAll(int[] rows, int[] cols) {
+        if (rows.length != cols.length)
+            throw new IllegalArgumentException("rows and cols must have the same length");
+        for (int i = 0; i < rows.length; i++)
+            validate(rows[i], cols[i]);
+
+        for (int i = 0; i < rows.length; i++)
+            link(rows[i], cols[i]);
+        if (!deferred)
+            propagate();
     }
 
     /**
@@ -77,36 +191,108 @@ public class Percolation {
     public void open(int row, int col) {
         validate(row, col);
 
+        if (!link(row, col) || deferred)
+            return;
+
+        if (touchesFull(pos(row, col)))
+            markAsFull(row, col);
+        propagated = openedCount;
+    }
+
+    // opens the site and unions it with open neighbours, returns false if
+    // the site is already open
+    private boolean link(int row, int col) {
         int cur = pos(row, col);
 
-        if (isOpen(cur) || isFull(cur))
-            return;
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.OPEN_CALLS.increment();
+
+        if (isOpen(cur) || isFull(cur)) {
+            if (PercolationMetrics.ENABLED)
+                PercolationMetrics.OPEN_REPEATED.increment();
+            return false;
+        }
 
         state[cur] = sOpen;
-        openedCount++;
+        opened[openedCount++] = cur;
+
+        clusterCount++;
+        largestCluster = Math.max(largestCluster, 1);
+        if (histogram != null) {
+            histogram[1]++;
+            mergedCount = 0;
+        }
 
         int left = posLeft(cur);
         int right = posRight(cur);
         int top = posTop(cur);
         int bottom = posBottom(cur);
 
-        if (row == 1)
-            qf.union(cur, virtualTop);
+        // the opened site is its own root, the root is carried through the
+        // merges so only the neighbours are looked up
+        int root = cur;
 
         if (col > 1 && isOpenOrFull(left))
-            qf.union(cur, left);
+            root = union(root, left);
 
         if (col < size && isOpenOrFull(right))
-            qf.union(cur, right);
+            root = union(root, right);
 
         if (row > 1 && isOpenOrFull(top))
-            qf.union(cur, top);
+            root = union(root, top);
 
         if (row < size && isOpenOrFull(bottom))
-            qf.union(cur, bottom);
+            root = union(root, bottom);
 
-        if (row == 1 || qf.connected(cur, virtualTop))
-            markAsFull(row, col);
+        return true;
+    }
+
+    // merges the cluster of the root with the neighbour's cluster updating
+    // the statistics, returns the root of the merged cluster
+    private int union(int rp, int q) {
+        int rq = qf.find(q);
+        if (rp == rq)
+            return rp;
+        int a = qf.rootSize(rp);
+        int b = qf.rootSize(rq);
+        int root = qf.link(rp, rq);
+
+        clusterCount--;
+        largestCluster = Math.max(largestCluster, a + b);
+        if (histogram != null) {
+            histogram[a]--;
+            histogram[b]--;
+            histogram[a + b]++;
+            // a is the growing cluster of the opened site, b is a neighbour's
+            merged[mergedCount++] = b;
+        }
+        return root;
+    }
+
+    // shows if the open site is in the top row or next to a full site
+    private boolean touchesFull(int p) {
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.FULL_CHECKS.increment();
+        int row = p / size + 1;
+        int col = p % size + 1;
+        return row == 1
+                || (col > 1 && isFull(posLeft(p)))
+                || (col < size && isFull(posRight(p)))
+                || (row > 1 && isFull(posTop(p)))
+                || (row < size && isFull(posBottom(p)));
+    }
+
+    // Fills the sites opened since the last fill. The sites open before them
+    // are filled correctly, so every site which has to be filled is connected
+    // to a pending site in the top row or next to a full site, and one flood
+    // fill from each of such sites fills them all
+    private void propagate() {
+        for (int i = propagated; i < openedCount; i++) {
+            int p = opened[i];
+            if (isOpen(p) && touchesFull(p))
+                markAsFull(p / size + 1, p % size + 1);
+        }
+        propagated = openedCount;
     }
 
     private void markAsFull(int row, int col) {
@@ -116,11 +302,14 @@ public class Percolation {
 
         int i = 0;
         stack[i] = p;
+        int visited = 0;
+        int depth = 1;
 
         do {
             p = stack[i--];
 
             setFull(p);
+            visited++;
 
             for (int j = 0; j < 4; j++) {
                 int q = -1;
@@ -152,6 +341,7 @@ public class Percolation {
                     continue;
 
                 setFull(q);
+                visited++;
 
                 // left
                 if (q > 0 && q % size != 0 && state[q - 1] == sOpen)
@@ -170,10 +360,19 @@ public class Percolation {
                     push = true;
 
                 if (push) {
+                    if (i + 1 == stack.length)
+                        stack = Arrays.copyOf(stack, Math.min(len, stack.length << 1));
                     stack[++i] = q;
+                    depth = Math.max(depth, i + 1);
                 }
             }
         } while (i >= 0);
+
+        if (PercolationMetrics.ENABLED) {
+            PercolationMetrics.FILL_CALLS.increment();
+            PercolationMetrics.FILL_VISITED.record(visited);
+            PercolationMetrics.FILL_STACK_DEPTH.record(depth);
+        }
     }
 
     /**
@@ -182,6 +381,7 @@ public class Percolation {
      * @return {@code true} if the grid percolates, {@code false} if it doesn't
      */
     public boolean percolates() {
+        propagate();
         return percolates;
     }
 
@@ -207,6 +407,7 @@ public class Percolation {
      */
     public boolean isFull(int row, int col) {
         validate(row, col);
+        propagate();
         int cur = pos(row, col);
         return isFull(cur);
     }
@@ -220,6 +421,178 @@ public class Percolation {
         return openedCount;
     }
 
+    /**
+     * Returns count of clusters of open sites
+     *
+     * @return {@code int}
+     */
+    public int clusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * Returns count of sites in the largest cluster
+     *
+     * @return {@code int}
+     */
+    public int largestCluster() {
+        return largestCluster;
+    }
+
+    /**
+     * Returns count of clusters of the given size, the grid must be created
+     * with the histogram
+     *
+     * @param clusterSize - cluster size between 1 and n*n
+     * @return {@code int}
+     */
+    public int clustersOfSize(int clusterSize) {
+        if (histogram == null)
+            throw new UnsupportedOperationException("The grid is created without cluster size histogram");
+        if (clusterSize < 1 || clusterSize > len)
+            throw new IllegalArgumentException(String.format("clusterSize must be between 1 and %d", len));
+        return histogram[clusterSize];
+    }
+
+    /**
+     * Returns the grid's side length
+     *
+     * @return {@code int}
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns index of the i-th opened site
+     *
+     * @param i - index in the opening order, less than numberOfOpenSites
+     * @return {@code int} site index
+     */
+    int opened(int i) {
+        return opened[i];
+    }
+
+    /**
+     * Returns count of resets since creation, restored grid keeps the count
+     * of the saved one
+     *
+     * @return {@code int}
+     */
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Returns count of the clusters merged by the last opened site, the grid
+     * must be created with the histogram
+     *
+     * @return {@code int} between 0 and 4
+     */
+    int mergedCount() {
+        return mergedCount;
+    }
+
+    /**
+     * Returns size of the i-th cluster merged by the last opened site
+     *
+     * @param i - index less than mergedCount
+     * @return {@code int}
+     */
+    int merged(int i) {
+        return merged[i];
+    }
+
+    /**
+     * Writes the grid to the stream: counters, optionally the opening order
+     * as zigzag variable-length deltas between consecutive sites, and the
+     * state array in the given encoding. Union-find links aren't written,
+     * they are rebuilt by opening the sites again
+     *
+     * @param out       - output stream
+     * @param encoding  - state array encoding
+     * @param keepOrder - {@code true} to write the opening order
+     */
+    void write(DataOutputStream out, PercolationCheckpoint.Encoding encoding, boolean keepOrder) throws IOException {
+        propagate();
+        out.writeInt(size);
+        out.writeBoolean(histogram != null);
+        out.writeInt(generation);
+        out.writeInt(openedCount);
+        out.writeBoolean(keepOrder);
+        if (keepOrder) {
+            int prev = 0;
+            for (int i = 0; i < openedCount; i++) {
+                int delta = opened[i] - prev;
+                PercolationCheckpoint.writeVarInt(out, (delta << 1) ^ (delta >> 31));
+                prev = opened[i];
+            }
+        }
+        PercolationCheckpoint.writeState(out, state, encoding);
+    }
+
+    /**
+     * Reads the grid written by {@code write}. Nothing read is trusted: the
+     * sites are opened again in the saved order, or in index order if the
+     * order wasn't written, which rebuilds union-find,
+     * cluster statistics and full sites, and the result must match the saved
+     * state array
+     *
+     * @param in - input stream
+     * @return {@code Percolation}
+     */
+    static Percolation read(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n <= 0 || n > 46340)
+            throw new IOException("Corrupted grid size " + n);
+        Percolation p = new Percolation(n, in.readBoolean());
+        p.generation = in.readInt();
+        int count = in.readInt();
+        if (count < 0 || count > p.len)
+            throw new IOException("Corrupted open sites count " + count);
+        int[] order = null;
+        if (in.readBoolean()) {
+            order = new int[count];
+            int prev = 0;
+            for (int i = 0; i < count; i++) {
+                int zigzag = PercolationCheckpoint.readVarInt(in);
+                int site = prev + ((zigzag >>> 1) ^ -(zigzag & 1));
+                if (site < 0 || site >= p.len)
+                    throw new IOException("Corrupted site index " + site);
+                order[i] = site;
+                prev = site;
+            }
+        }
+
+        byte[] saved = new byte[p.len];
+        PercolationCheckpoint.readState(in, saved);
+        int open = 0;
+        for (byte s : saved) {
+            if (s < 0 || s > sFull)
+                throw new IOException("Corrupted site state " + s);
+            if (s != 0)
+                open++;
+        }
+        if (open != count)
+            throw new IOException(String.format("State has %d open sites, the count is %d", open, count));
+
+        if (order != null) {
+            for (int site : order) {
+                if (saved[site] == 0 || !p.link(site / n + 1, site % n + 1))
+                    throw new IOException("Site " + site + " is blocked in the state or opened twice");
+            }
+        } else {
+            for (int site = 0; site < p.len; site++) {
+                if (saved[site] != 0)
+                    p.link(site / n + 1, site % n + 1);
+            }
+        }
+        p.propagate();
+        if (!Arrays.equals(p.state, saved))
+            throw new IOException("Full sites in the state don't match the open sites");
+        return p;
+    }
+
     private int pos(int row, int col) {
         return (row - 1) * size + col - 1;
     }
@@ -0,0 +1,375 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Saves {@code Percolation} grid to the snapshot file and the opened sites to
+ * the append-only log, so a killed run can be restored instead of starting
+ * over from the empty grid.
+ * <p>
+ * The snapshot holds the grid's counters and the state array stored raw,
+ * run-length encoded or as 2-bit bitmap, and optionally the opening order as
+ * variable-length deltas. Without the order the open sites are taken in
+ * index order. Union-find isn't saved, restore opens the sites again in
+ * that order and checks the result against the saved state, so a corrupted
+ * snapshot fails instead of producing a broken grid. The log holds 4-byte
+ * indexes of the sites opened after the snapshot, restore replays them with {@code open}. Replaying a site which is
+ * already open does nothing, so the log stays valid even if the run is killed
+ * between writing the snapshot and truncating the log. A truncated last
+ * record is cut off the log by restore, so the restored grid can go on
+ * appending to it
+ *
+ * @author Alexander Panko
+ */
+public class PercolationCheckpoint implements AutoCloseable {
+    private static final int MAGIC = 0x50434b50;
+    private static final int VERSION = 5;
+
+    /**
+     * Encoding of the state array in the snapshot
+     */
+    public enum Encoding {
+        /**
+         * Byte per site
+         */
+        RAW,
+        /**
+         * Pairs of state and run length, the length is a variable-length
+         * integer, 7 bits per byte
+         */
+        RLE,
+        /**
+         * 2 bits per site
+         */
+        BITMAP
+    }
+
+    private final Percolation p;
+    private final Path snapshot;
+    private final Path log;
+    private final Encoding encoding;
+    private final boolean keepOrder;
+    private final FileChannel channel;
+
+    /**
+     * Count of opened sites already saved to the snapshot or to the log
+     */
+    private int mark;
+
+    /**
+     * Generation of the grid saved to the snapshot, sites of a grid reset
+     * since then don't belong to the log
+     */
+    private int generation;
+
+    /**
+     * Creates checkpoint of the grid saving only the state of the sites, the
+     * opening order is lost on restore
+     *
+     * @param p        - the grid
+     * @param snapshot - snapshot file
+     * @param log      - log file
+     * @param encoding - state array encoding
+     */
+    public PercolationCheckpoint(Percolation p, Path snapshot, Path log, Encoding encoding) throws IOException {
+        this(p, snapshot, log, encoding, false);
+    }
+
+    /**
+     * Creates checkpoint of the grid, nothing is saved until {@code snapshot}
+     * or {@code append} is called. Sites already open are taken as saved, so
+     * a grid restored from the files goes on appending to the same log
+     *
+     * @param p         - the grid
+     * @param snapshot  - snapshot file
+     * @param log       - log file
+     * @param encoding  - state array encoding
+     * @param keepOrder - {@code true} to save the opening order too, about 3
+     *                  bytes per open site
+     */
+    public PercolationCheckpoint(Percolation p, Path snapshot, Path log, Encoding encoding, boolean keepOrder)
+            throws IOException {
+        if (p == null || snapshot == null || log == null || encoding == null)
+            throw new IllegalArgumentException();
+        this.p = p;
+        this.snapshot = snapshot;
+        this.log = log;
+        this.encoding = encoding;
+        this.keepOrder = keepOrder;
+        channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        mark = p.numberOfOpenSites();
+        generation = p.generation();
+    }
+
+    /**
+     * Writes the whole grid to the snapshot file replacing it atomically, and
+     * truncates the log
+     */
+    public void snapshot() throws IOException {
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            p.write(out, encoding, keepOrder);
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.truncate(0);
+        channel.force(true);
+        mark = p.numberOfOpenSites();
+        generation = p.generation();
+    }
+
+    /**
+     * Appends sites opened since the last snapshot or append to the log. If
+     * the grid was reset since, the log would replay the new sites onto the
+     * old grid, so a new snapshot is taken instead
+     */
+    public void append() throws IOException {
+        if (p.generation() != generation) {
+            snapshot();
+            return;
+        }
+        int count = p.numberOfOpenSites();
+        if (count == mark)
+            return;
+
+        ByteBuffer buf = ByteBuffer.allocate((count - mark) * Integer.BYTES);
+        for (int i = mark; i < count; i++)
+            buf.putInt(p.opened(i));
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        channel.force(false);
+        mark = count;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Restores the grid from the snapshot and replays the log if it exists,
+     * a partial last record is truncated
+     *
+     * @param snapshot - snapshot file
+     * @param log      - log file
+     * @return {@code Percolation}
+     */
+    public static Percolation restore(Path snapshot, Path log) throws IOException {
+        Percolation p;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(snapshot + " isn't a percolation snapshot");
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version " + version);
+            p = Percolation.read(in);
+        }
+
+        if (!Files.exists(log))
+            return p;
+
+        int n = p.size();
+        long whole = 0;
+        byte[] record = new byte[Integer.BYTES];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(log))) {
+            // a short read means the run was killed while appending
+            while (in.readNBytes(record, 0, record.length) == record.length) {
+                int site = ByteBuffer.wrap(record).getInt();
+                if (site < 0 || site >= n * n)
+                    throw new IOException("Corrupted site index " + site);
+                p.open(site / n + 1, site % n + 1);
+                whole += record.length;
+            }
+        }
+        // later appends must start at a record boundary
+        if (Files.size(log) > whole) {
+            try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                ch.truncate(whole);
+                ch.force(true);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Writes the state array in the given encoding
+     *
+     * @param out      - output stream
+     * @param state    - state array, values are between 0 and 3
+     * @param encoding - encoding
+     */
+    static void writeState(DataOutputStream out, byte[] state, Encoding encoding) throws IOException {
+        out.writeByte(encoding.ordinal());
+        switch (encoding) {
+        case RAW:
+            out.write(state);
+            break;
+        case RLE:
+            for (int i = 0; i < state.length;) {
+                int j = i + 1;
+                while (j < state.length && state[j] == state[i])
+                    j++;
+                out.writeByte(state[i]);
+                writeVarInt(out, j - i);
+                i = j;
+            }
+            break;
+        case BITMAP:
+            for (int i = 0; i < state.length; i += 4) {
+                int b = 0;
+                for (int j = 0; j < 4 && i + j < state.length; j++)
+                    b |= state[i + j] << (j << 1);
+                out.writeByte(b);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Reads the state array written by {@code writeState}
+     *
+     * @param in    - input stream
+     * @param state - state array to fill, its length is the count of sites
+     */
+    static void readState(DataInputStream in, byte[] state) throws IOException {
+        int e = in.readUnsignedByte();
+        if (e >= Encoding.values().length)
+            throw new IOException("Unknown state encoding " + e);
+        switch (Encoding.values()[e]) {
+        case RAW:
+            in.readFully(state);
+            break;
+        case RLE:
+            for (int i = 0; i < state.length;) {
+                byte value = in.readByte();
+                int run = readVarInt(in);
+                if (run <= 0 || run > state.length - i)
+                    throw new IOException("Corrupted run length " + run);
+                for (int j = 0; j < run; j++)
+                    state[i++] = value;
+            }
+            break;
+        case BITMAP:
+            for (int i = 0; i < state.length; i += 4) {
+                int b = in.readUnsignedByte();
+                for (int j = 0; j < 4 && i + j < state.length; j++)
+                    state[i + j] = (byte) ((b >>> (j << 1)) & 3);
+            }
+            break;
+        default:
+            throw new IOException("Unknown state encoding " + e);
+        }
+    }
+
+    static void writeVarInt(DataOutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return v;
+        }
+        throw new IOException("Corrupted variable-length integer");
+    }
+
+    // runs the grid with snapshots and appends, kills it in the middle of the
+    // record, restores and compares with the original run, then goes on with
+    // the restored grid and restores it again
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int interval = args.length > 1 ? Integer.parseInt(args[1]) : n * n / 20;
+        Path dir = Files.createTempDirectory("checkpoint");
+
+        for (Encoding encoding : Encoding.values()) {
+            Path snapshot = dir.resolve("grid." + encoding);
+            Path log = dir.resolve("grid.log");
+            Percolation p = new Percolation(n);
+
+            try (PercolationCheckpoint cp = new PercolationCheckpoint(p, snapshot, log, encoding)) {
+                long start = System.nanoTime();
+                cp.snapshot();
+                long snapshotTime = System.nanoTime() - start;
+                int opens = 0;
+                while (!p.percolates()) {
+                    p.open(StdRandom.uniform(n) + 1, StdRandom.uniform(n) + 1);
+                    if (++opens % interval == 0) {
+                        cp.append();
+                        if (opens % (interval * 4) == 0) {
+                            start = System.nanoTime();
+                            cp.snapshot();
+                            snapshotTime = System.nanoTime() - start;
+                        }
+                    }
+                }
+                cp.append();
+                StdOut.printf("%-6s snapshot %9d bytes, %7.1f ms, log %8d bytes\n", encoding, Files.size(snapshot),
+                        snapshotTime / 1e6, Files.size(log));
+            }
+
+            // partial record left by the killed run
+            Files.write(log, new byte[] { 0, 0 }, StandardOpenOption.APPEND);
+
+            long start = System.nanoTime();
+            Percolation r = restore(snapshot, log);
+            StdOut.printf("%-6s restored in %.1f ms, same grid: %s\n", encoding, (System.nanoTime() - start) / 1e6,
+                    same(r, p));
+
+            try (PercolationCheckpoint cp = new PercolationCheckpoint(r, snapshot, log, encoding)) {
+                for (int i = 0; i < interval; i++) {
+                    int row = StdRandom.uniform(n) + 1;
+                    int col = StdRandom.uniform(n) + 1;
+                    p.open(row, col);
+                    r.open(row, col);
+                }
+                cp.append();
+            }
+            StdOut.printf("%-6s resumed and restored again, same grid: %s\n", encoding,
+                    same(restore(snapshot, log), p));
+
+            Files.delete(snapshot);
+            Files.delete(log);
+        }
+        Files.delete(dir);
+    }
+
+    private static boolean same(Percolation r, Percolation p) {
+        if (r.numberOfOpenSites() != p.numberOfOpenSites() || r.percolates() != p.percolates())
+            return false;
+        int n = p.size();
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (r.isOpen(i, j) != p.isOpen(i, j) || r.isFull(i, j) != p.isFull(i, j))
+                    return false;
+            }
+        }
+        return true;
+    }
+}
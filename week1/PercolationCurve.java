@@ -0,0 +1,215 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * This class estimates percolation threshold and the whole spanning
+ * probability curve in the manner of Newman and Ziff: every trial opens the
+ * sites of an n-by-n grid in random order, each site exactly once, and
+ * records the number of opened sites at the moment the grid percolates.
+ * Sites are drawn by incremental Fisher-Yates shuffle, so a trial makes one
+ * random draw per opened site and no draws are wasted on open sites
+ *
+ * @author Alexander Panko
+ */
+public class PercolationCurve {
+    /**
+     * {@code int} variables representing the grid's side length and sites count
+     */
+    private final int size, len;
+
+    /**
+     * {@code int} variable representing the number of trials
+     */
+    private final int trials;
+
+    /**
+     * {@code int} array, k-th item holds the number of trials that percolated
+     * exactly when k-th site was opened
+     */
+    private final int[] percolatedAt;
+
+    /**
+     * {@code double} array, k-th item holds the probability that the grid with
+     * k opened sites percolates
+     */
+    private final double[] curve;
+
+    /**
+     * Statistics of the thresholds found by the trials
+     */
+    private final PercolationStats stats;
+
+    /**
+     * Performs independent trials on an n-by-n grid
+     *
+     * @param n      - grid's side length
+     * @param trials - number of trials
+     * @param seed   - random seed
+     */
+    public PercolationCurve(int n, int trials, long seed) {
+        if (n < 1 || trials < 1)
+            throw new IllegalArgumentException("Size n and number of trials both must be >= 1");
+        size = n;
+        len = n * n;
+        this.trials = trials;
+        percolatedAt = new int[len + 1];
+
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        Percolation p = new Percolation(n);
+
+        // The order is never restored between trials, shuffling any
+        // permutation gives a uniformly random one
+        int[] order = new int[len];
+        for (int i = 0; i < len; i++)
+            order[i] = i;
+
+        double[] results = new double[trials];
+        for (int pass = 0; pass < trials; pass++) {
+            int k = trial(p, order, random);
+            percolatedAt[k]++;
+            results[pass] = (double) k / len;
+        }
+        stats = PercolationStats.of(start, results);
+
+        curve = new double[len + 1];
+        int percolated = 0;
+        for (int k = 0; k <= len; k++) {
+            percolated += percolatedAt[k];
+            curve[k] = (double) percolated / trials;
+        }
+    }
+
+    // opens sites in random order until the grid percolates, returns the
+    // number of opened sites
+    private int trial(Percolation p, int[] order, SplittableRandom random) {
+        p.reset();
+        int k = 0;
+        do {
+            int i = k + random.nextInt(len - k);
+            int site = order[i];
+            order[i] = order[k];
+            order[k++] = site;
+            p.open(site / size + 1, site % size + 1);
+        } while (!p.percolates());
+        return k;
+    }
+
+    /**
+     * Returns the probability that the grid percolates with exactly
+     * {@code opened} sites open
+     *
+     * @param opened - number of open sites
+     * @return {@code double}
+     */
+    public double spanningProbability(int opened) {
+        if (opened < 0 || opened > len)
+            throw new IllegalArgumentException(String.format("opened must be between 0 and %d", len));
+        return curve[opened];
+    }
+
+    /**
+     * Returns the probability that the grid percolates when each site is open
+     * with probability {@code p}. Computed as convolution of the curve with
+     * binomial distribution of the number of open sites
+     *
+     * @param p - site vacancy probability
+     * @return {@code double}
+     */
+    public double spanningProbability(double p) {
+        if (!(p >= 0 && p <= 1))
+            throw new IllegalArgumentException("p must be between 0 and 1");
+        if (p == 0 || p == 1)
+            return curve[(int) (p * len)];
+
+        // binomial weights relative to the mode, walking down and up until
+        // they become negligible
+        int mode = (int) (p * len);
+        double ratio = p / (1 - p);
+        double total = 1;
+        double sum = curve[mode];
+
+        double b = 1;
+        for (int k = mode; k > 0 && b > 1e-15; k--) {
+            b *= k / ((len - k + 1) * ratio);
+            total += b;
+            sum += b * curve[k - 1];
+        }
+
+        b = 1;
+        for (int k = mode; k < len && b > 1e-15; k++) {
+            b *= (len - k) * ratio / (k + 1);
+            total += b;
+            sum += b * curve[k + 1];
+        }
+        return sum / total;
+    }
+
+    /**
+     * Returns number of trials that percolated exactly when {@code opened}-th
+     * site was opened
+     *
+     * @param opened - number of open sites
+     * @return {@code int}
+     */
+    public int percolatedAt(int opened) {
+        if (opened < 0 || opened > len)
+            throw new IllegalArgumentException(String.format("opened must be between 0 and %d", len));
+        return percolatedAt[opened];
+    }
+
+    /**
+     * Returns number of trials
+     *
+     * @return {@code int}
+     */
+    public int trials() {
+        return trials;
+    }
+
+    // sample mean of percolation threshold
+    public double mean() {
+        return stats.mean();
+    }
+
+    // sample standard deviation of percolation threshold
+    public double stddev() {
+        return stats.stddev();
+    }
+
+    // low endpoint of 95% confidence interval
+    public double confidenceLo() {
+        return stats.confidenceLo();
+    }
+
+    // high endpoint of 95% confidence interval
+    public double confidenceHi() {
+        return stats.confidenceHi();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            StdOut.println("Usage: java PercolationCurve n trials [seed [points]]");
+            StdOut.println("Where:");
+            StdOut.println("  n      - grid size, should be >= 1");
+            StdOut.println("  trials - number of experiments, should be >= 1");
+            StdOut.println("  seed   - random seed, defaults to current time");
+            StdOut.println("  points - number of curve points to print, defaults to 20");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int points = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        PercolationCurve curve = new PercolationCurve(n, trials, seed);
+        curve.stats.print();
+        StdOut.println();
+        StdOut.printf("%8s %8s\n", "p", "P(p)");
+        for (int i = 0; i <= points; i++) {
+            double p = (double) i / points;
+            StdOut.printf("%8.4f %8.4f\n", p, curve.spanningProbability(p));
+        }
+    }
+}
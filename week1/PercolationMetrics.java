@@ -0,0 +1,227 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional counters and histograms of {@code Percolation},
+ * {@code GridUnionFind} and {@code PercolationStats} hot paths, enabled with
+ * {@code -Dpercolation.metrics=true}.
+ * <p>
+ * Every instrumented spot is guarded by {@code ENABLED}, which is a
+ * {@code static final} constant, so when metrics are disabled JIT drops the
+ * guarded code together with the local bookkeeping feeding it. When enabled,
+ * counters are {@code LongAdder}s, so parallel trials don't contend on them
+ *
+ * @author Alexander Panko
+ */
+public final class PercolationMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+
+    private static final Map<String, LongAdder> COUNTERS = new LinkedHashMap<String, LongAdder>();
+    private static final Map<String, Histogram> HISTOGRAMS = new LinkedHashMap<String, Histogram>();
+
+    static final LongAdder OPEN_CALLS = counter("open.calls");
+    static final LongAdder OPEN_REPEATED = counter("open.repeated");
+    static final LongAdder FILL_CALLS = counter("fill.calls");
+    static final LongAdder UNION_CALLS = counter("union.calls");
+    static final LongAdder FULL_CHECKS = counter("full.checks");
+
+    static final Histogram FILL_VISITED = histogram("fill.visited");
+    static final Histogram FILL_STACK_DEPTH = histogram("fill.stackDepth");
+    static final Histogram FIND_DEPTH = histogram("find.depth");
+    static final Histogram TRIAL_NANOS = histogram("trial.nanos");
+
+    private PercolationMetrics() {
+    }
+
+    private static LongAdder counter(String name) {
+        LongAdder counter = new LongAdder();
+        COUNTERS.put(name, counter);
+        return counter;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = new Histogram();
+        HISTOGRAMS.put(name, histogram);
+        return histogram;
+    }
+
+    /**
+     * Returns current values of all the metrics
+     *
+     * @return {@code Snapshot}
+     */
+    public static Snapshot snapshot() {
+        Map<String, Long> counters = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, LongAdder> e : COUNTERS.entrySet())
+            counters.put(e.getKey(), e.getValue().sum());
+        Map<String, Summary> histograms = new LinkedHashMap<String, Summary>();
+        for (Map.Entry<String, Histogram> e : HISTOGRAMS.entrySet())
+            histograms.put(e.getKey(), e.getValue().summary());
+        return new Snapshot(counters, histograms);
+    }
+
+    /**
+     * Sets all the metrics to zero, not atomic against concurrent updates
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS.values())
+            counter.reset();
+        for (Histogram histogram : HISTOGRAMS.values())
+            histogram.reset();
+    }
+
+    /**
+     * Returns current values of all the metrics as JSON
+     *
+     * @return {@code String}
+     */
+    public static String toJson() {
+        return snapshot().toJson();
+    }
+
+    /**
+     * Histogram of non-negative values with log-linear buckets: values below 8
+     * have their own buckets, larger values are bucketed by their highest bit
+     * and 3 bits next to it, so a bucket is within 12.5% of its values
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++)
+                counts[i] = new LongAdder();
+        }
+
+        void record(long value) {
+            if (value < 0)
+                value = 0;
+            counts[bucket(value)].increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB)
+                return (int) value;
+            int e = 63 - Long.numberOfLeadingZeros(value);
+            return (e - SUB_BITS + 1) * SUB + (int) ((value >>> (e - SUB_BITS)) & (SUB - 1));
+        }
+
+        // the largest value of the bucket
+        private static long highest(int bucket) {
+            if (bucket < SUB)
+                return bucket;
+            int e = bucket / SUB + SUB_BITS - 1;
+            long low = (long) (SUB + bucket % SUB) << (e - SUB_BITS);
+            return low + (1L << (e - SUB_BITS)) - 1;
+        }
+
+        void reset() {
+            for (LongAdder count : counts)
+                count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        Summary summary() {
+            long[] snapshot = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts[i].sum();
+                count += snapshot[i];
+            }
+            double[] quantiles = { 0.5, 0.9, 0.99, 0.999 };
+            long[] values = new long[quantiles.length];
+            long seen = 0;
+            for (int i = 0, q = 0; i < BUCKETS && q < quantiles.length; i++) {
+                seen += snapshot[i];
+                while (q < quantiles.length && count > 0 && seen >= Math.ceil(quantiles[q] * count))
+                    values[q++] = Math.min(highest(i), max.get());
+            }
+            return new Summary(count, count == 0 ? 0 : (double) sum.sum() / count, max.get(), values[0], values[1],
+                    values[2], values[3]);
+        }
+    }
+
+    /**
+     * Count, mean, maximum and percentiles of the recorded values,
+     * percentiles are the upper bounds of their buckets
+     */
+    public static final class Summary {
+        public final long count;
+        public final double mean;
+        public final long max;
+        public final long p50, p90, p99, p999;
+
+        Summary(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+            this.count = count;
+            this.mean = mean;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+    }
+
+    /**
+     * Values of the metrics taken at one moment
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> counters;
+        private final Map<String, Summary> histograms;
+
+        Snapshot(Map<String, Long> counters, Map<String, Summary> histograms) {
+            this.counters = counters;
+            this.histograms = histograms;
+        }
+
+        public long counter(String name) {
+            Long value = counters.get(name);
+            if (value == null)
+                throw new IllegalArgumentException("Unknown counter " + name);
+            return value;
+        }
+
+        public Summary histogram(String name) {
+            Summary value = histograms.get(name);
+            if (value == null)
+                throw new IllegalArgumentException("Unknown histogram " + name);
+            return value;
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("{\"enabled\":").append(ENABLED).append(",\"counters\":{");
+            String sep = "";
+            for (Map.Entry<String, Long> e : counters.entrySet()) {
+                sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue());
+                sep = ",";
+            }
+            sb.append("},\"histograms\":{");
+            sep = "";
+            for (Map.Entry<String, Summary> e : histograms.entrySet()) {
+                Summary h = e.getValue();
+                sb.append(sep).append('"').append(e.getKey()).append("\":{")
+                        .append("\"count\":").append(h.count)
+                        .append(",\"mean\":").append(String.format(Locale.ROOT, "%.3f", h.mean))
+                        .append(",\"max\":").append(h.max)
+                        .append(",\"p50\":").append(h.p50)
+                        .append(",\"p90\":").append(h.p90)
+                        .append(",\"p99\":").append(h.p99)
+                        .append(",\"p999\":").append(h.p999)
+                        .append('}');
+                sep = ",";
+            }
+            return sb.append("}}").toString();
+        }
+    }
+}
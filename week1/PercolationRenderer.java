@@ -0,0 +1,245 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Headless counterpart of {@code PercolationVisualizer}: draws the grid into
+ * {@code BufferedImage} without a display, full sites in light blue, open
+ * sites in white and blocked sites in black. Instead of redrawing the whole
+ * grid after each open, the renderer keeps the state it has drawn and
+ * repaints only the changed sites: the opened site, and if it is full, the
+ * open sites which became full through it, found by BFS from the site. So the
+ * whole run costs O(N^2) drawing instead of O(N^4).
+ * <p>
+ * Frames can be written to PNG files or as raw rgb24 stream, e.g. for
+ * {@code ffmpeg -f rawvideo -pix_fmt rgb24 -s WxH -i frames.rgb out.mp4}
+ *
+ * @author Alexander Panko
+ */
+public class PercolationRenderer {
+    private static final int BLACK = 0x000000;
+    private static final int WHITE = 0xFFFFFF;
+    // StdDraw.BOOK_LIGHT_BLUE
+    private static final int LIGHT_BLUE = 0x67C6F3;
+
+    private static final byte sOpen = 1;
+    private static final byte sFull = 2;
+
+    private final Percolation perc;
+    private final int n;
+    private final int cell;
+    private final BufferedImage image;
+    private final int[] pixels;
+
+    /**
+     * State of the sites as drawn
+     */
+    private final byte[] drawn;
+
+    /**
+     * Queue of BFS over the sites which became full
+     */
+    private final int[] queue;
+
+    /**
+     * Creates renderer of the grid, each site takes cell*cell pixels
+     *
+     * @param perc - the grid, all sites blocked
+     * @param cell - site's side in pixels
+     */
+    public PercolationRenderer(Percolation perc, int cell) {
+        if (perc.numberOfOpenSites() != 0)
+            throw new IllegalArgumentException("The grid must have all sites blocked");
+        if (cell < 1)
+            throw new IllegalArgumentException("Cell size must be >= 1");
+        this.perc = perc;
+        this.n = perc.size();
+        this.cell = cell;
+
+        int side = n * cell;
+        image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        drawn = new byte[n * n];
+        queue = new int[n * n];
+    }
+
+    /**
+     * Opens the site and repaints the changed sites
+     *
+     * @param row - row index
+     * @param col - column index
+     */
+    public void open(int row, int col) {
+        perc.open(row, col);
+
+        int p = (row - 1) * n + col - 1;
+        if (drawn[p] != 0)
+            return;
+        if (!perc.isFull(row, col)) {
+            paint(p, sOpen);
+            return;
+        }
+
+        int head = 0;
+        int tail = 0;
+        paint(p, sFull);
+        queue[tail++] = p;
+        while (head < tail) {
+            p = queue[head++];
+            int r = p / n;
+            int c = p % n;
+            if (c > 0 && becameFull(p - 1, r, c - 1))
+                queue[tail++] = p - 1;
+            if (c < n - 1 && becameFull(p + 1, r, c + 1))
+                queue[tail++] = p + 1;
+            if (r > 0 && becameFull(p - n, r - 1, c))
+                queue[tail++] = p - n;
+            if (r < n - 1 && becameFull(p + n, r + 1, c))
+                queue[tail++] = p + n;
+        }
+    }
+
+    // a site drawn open next to a full site is full now
+    private boolean becameFull(int p, int r, int c) {
+        if (drawn[p] != sOpen || !perc.isFull(r + 1, c + 1))
+            return false;
+        paint(p, sFull);
+        return true;
+    }
+
+    private void paint(int p, byte state) {
+        drawn[p] = state;
+        int rgb = state == sFull ? LIGHT_BLUE : WHITE;
+        int side = n * cell;
+        int offset = (p / n) * cell * side + (p % n) * cell;
+        for (int y = 0; y < cell; y++, offset += side) {
+            for (int x = 0; x < cell; x++)
+                pixels[offset + x] = rgb;
+        }
+    }
+
+    /**
+     * Returns the image, it is updated in place by {@code open}
+     *
+     * @return {@code BufferedImage}
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Writes the current frame to PNG file
+     *
+     * @param file - output file
+     */
+    public void writePng(Path file) throws IOException {
+        ImageIO.write(image, "png", file.toFile());
+    }
+
+    /**
+     * Writes the current frame as raw rgb24 pixels, row by row
+     *
+     * @param out - output stream
+     */
+    public void writeRaw(OutputStream out) throws IOException {
+        int side = n * cell;
+        byte[] row = new byte[side * 3];
+        for (int y = 0, offset = 0; y < side; y++, offset += side) {
+            for (int x = 0; x < side; x++) {
+                int rgb = pixels[offset + x];
+                row[x * 3] = (byte) (rgb >>> 16);
+                row[x * 3 + 1] = (byte) (rgb >>> 8);
+                row[x * 3 + 2] = (byte) rgb;
+            }
+            out.write(row);
+        }
+    }
+
+    // renders the run from the visualizer input file, or random opens of the
+    // n*n grid until it percolates
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 4) {
+            StdOut.println("Usage: java PercolationRenderer input interval output [cell]");
+            StdOut.println("Where:");
+            StdOut.println("  input    - PercolationVisualizer input file, or grid size n for random opens");
+            StdOut.println("  interval - number of opens between frames");
+            StdOut.println("  output   - directory for PNG frames, or file for raw rgb24 stream, - for stdout");
+            StdOut.println("  cell     - site's side in pixels, defaults to 1");
+            return;
+        }
+        int interval = Integer.parseInt(args[1]);
+        if (interval < 1)
+            throw new IllegalArgumentException("Interval must be >= 1");
+        int cell = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        In in = null;
+        int n;
+        if (args[0].matches("\\d+")) {
+            n = Integer.parseInt(args[0]);
+        } else {
+            in = new In(args[0]);
+            n = in.readInt();
+        }
+
+        Percolation perc = new Percolation(n);
+        PercolationRenderer renderer = new PercolationRenderer(perc, cell);
+
+        Path dir = null;
+        OutputStream raw;
+        if (args[2].equals("-")) {
+            raw = new BufferedOutputStream(System.out, 1 << 16);
+        } else if (Files.isDirectory(Paths.get(args[2]))) {
+            dir = Paths.get(args[2]);
+            raw = null;
+        } else {
+            raw = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[2])), 1 << 16);
+        }
+
+        long start = System.nanoTime();
+        int opens = 0;
+        int frames = 0;
+        boolean last = false;
+        while (true) {
+            if (in != null) {
+                if (in.isEmpty())
+                    break;
+                renderer.open(in.readInt(), in.readInt());
+            } else {
+                if (perc.percolates())
+                    break;
+                renderer.open(StdRandom.uniform(n) + 1, StdRandom.uniform(n) + 1);
+            }
+            last = ++opens % interval == 0;
+            if (last)
+                frames = writeFrame(renderer, dir, raw, frames);
+        }
+        if (!last)
+            frames = writeFrame(renderer, dir, raw, frames);
+        if (raw != null)
+            raw.close();
+
+        if (dir != null || !args[2].equals("-"))
+            StdOut.printf("%d opens, %d frames of %dx%d in %.3f s\n", opens, frames, n * cell, n * cell,
+                    (System.nanoTime() - start) / 1e9);
+    }
+
+    private static int writeFrame(PercolationRenderer renderer, Path dir, OutputStream raw, int frame)
+            throws IOException {
+        if (dir != null)
+            renderer.writePng(dir.resolve(String.format("frame-%06d.png", frame)));
+        else
+            renderer.writeRaw(raw);
+        return frame + 1;
+    }
+}
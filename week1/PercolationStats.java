@@ -1,3 +1,18 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdOut;
@@ -5,32 +20,301 @@ import edu.princeton.cs.algs4.StdOut;
 public class PercolationStats {
 
     private static final double CONFIDENCE_95_KOEFF = 1.96;
+    // fewer trials give too rough stddev estimate to stop on
+    private static final int MIN_ADAPTIVE_TRIALS = 30;
     private final double stddev;
     private final double mean;
     private final double confidenceLo;
     private final double confidenceHi;
+    private final int trials;
+    private final long elapsedNanos;
 
     // perform independent trials on an n-by-n grid
     public PercolationStats(int n, int trials) {
+        this(System.nanoTime(), sequential(n, trials));
+    }
+
+    // perform independent trials on an n-by-n grid drawing sites from the
+    // given generator instead of shared StdRandom
+    public PercolationStats(int n, int trials, RandomGenerator random) {
+        this(System.nanoTime(), sequential(n, trials, random));
+    }
+
+    // perform independent trials on an n-by-n grid splitting them across a
+    // pool of workers, each worker draws from its own random stream split off
+    // the seed, so results are reproducible for the same seed and workers
+    public PercolationStats(int n, int trials, int workers, long seed) {
+        this(n, trials, workers, new SplittableRandom(seed));
+    }
+
+    // same as above, worker streams are split off the given generator
+    public PercolationStats(int n, int trials, int workers, RandomGenerator.SplittableGenerator random) {
+        this(System.nanoTime(), parallel(n, trials, workers, random));
+    }
+
+    // perform trials on an n-by-n grid until half-width of 95% confidence
+    // interval drops to the target or maxTrials are done, at least 30 trials
+    // unless maxTrials is less. A factory rather than a constructor, so a
+    // call with int arguments can't widen to it by mistake
+    public static PercolationStats adaptive(int n, double halfWidth, int maxTrials) {
+        return adaptive(n, halfWidth, maxTrials, null);
+    }
+
+    // same as above drawing sites from the given generator, null stands for
+    // shared StdRandom
+    public static PercolationStats adaptive(int n, double halfWidth, int maxTrials, RandomGenerator random) {
+        long start = System.nanoTime();
+        return new PercolationStats(start, runAdaptive(n, halfWidth, maxTrials, random));
+    }
+
+    // statistics of the thresholds found by trials run elsewhere, e.g. by
+    // TrialScheduler, the trials were started at the given System.nanoTime()
+    static PercolationStats of(long start, double[] results) {
+        if (results.length == 0)
+            throw new IllegalArgumentException("Number of trials must be >= 1");
+        return new PercolationStats(start, results);
+    }
+
+    private PercolationStats(long start, double[] results) {
+        this(start, results.length, StdStats.mean(results), StdStats.stddev(results));
+    }
+
+    private PercolationStats(long start, Moments moments) {
+        this(start, moments.count, moments.mean, moments.stddev());
+    }
+
+    private PercolationStats(long start, int trials, double mean, double stddev) {
+        elapsedNanos = System.nanoTime() - start;
+        this.trials = trials;
+        this.mean = mean;
+        this.stddev = stddev;
+        double confidenceDelta = CONFIDENCE_95_KOEFF * stddev / Math.sqrt(trials);
+        confidenceLo = mean - confidenceDelta;
+        confidenceHi = mean + confidenceDelta;
+    }
+
+    private static void validate(int n, int trials) {
         if (n < 1 || trials < 1)
             throw new IllegalArgumentException("Size n and number of trials both must be >= 1");
+    }
+
+    private static double[] sequential(int n, int trials) {
+        validate(n, trials);
 
         double[] results = new double[trials];
-        for (int pass = 0; pass < trials; pass++) {
-            Percolation p = new Percolation(n);
-            do {
-                int row = StdRandom.uniform(n) + 1;
-                int col = StdRandom.uniform(n) + 1;
-                p.open(row, col);
-            } while (!p.percolates());
-            results[pass] = (double) p.numberOfOpenSites() / (n * n);
+        Percolation p = new Percolation(n);
+        for (int pass = 0; pass < trials; pass++)
+            results[pass] = trial(p);
+        return results;
+    }
+
+    // runs trials updating mean and variance online until the confidence
+    // interval is narrow enough
+    private static Moments runAdaptive(int n, double halfWidth, int maxTrials, RandomGenerator random) {
+        validate(n, maxTrials);
+        if (!(halfWidth > 0))
+            throw new IllegalArgumentException("Half-width must be > 0");
+
+        Moments moments = new Moments();
+        Percolation p = new Percolation(n);
+        while (moments.count < maxTrials) {
+            moments.add(random == null ? trial(p) : trial(p, random));
+            if (moments.count >= MIN_ADAPTIVE_TRIALS
+                    && CONFIDENCE_95_KOEFF * moments.stddev() / Math.sqrt(moments.count) <= halfWidth)
+                break;
         }
-        mean = StdStats.mean(results);
-        stddev = StdStats.stddev(results);
-        double confidenceDelta = CONFIDENCE_95_KOEFF * stddev / Math.sqrt(trials);
-        confidenceLo = mean - confidenceDelta;
-        confidenceHi = mean + confidenceDelta;
+        return moments;
+    }
+
+    private static double[] sequential(int n, int trials, RandomGenerator random) {
+        validate(n, trials);
+
+        double[] results = new double[trials];
+        Percolation p = new Percolation(n);
+        for (int pass = 0; pass < trials; pass++)
+            results[pass] = trial(p, random);
+        return results;
+    }
+
+    private static double[] parallel(int n, int trials, int workers, RandomGenerator.SplittableGenerator root) {
+        validate(n, trials);
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be >= 1");
 
+        workers = Math.min(workers, trials);
+
+        double[] results = new double[trials];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+        for (int w = 0; w < workers; w++) {
+            int from = (int) ((long) trials * w / workers);
+            int to = (int) ((long) trials * (w + 1) / workers);
+            RandomGenerator random = root.split();
+            tasks.add(() -> {
+                Percolation p = new Percolation(n);
+                for (int pass = from; pass < to; pass++)
+                    results[pass] = trial(p, random);
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks))
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running trials", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Trial failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    // same as below drawing from shared StdRandom
+    private static double trial(Percolation p) {
+        long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+        int n = p.size();
+        p.reset();
+        do {
+            int row = StdRandom.uniform(n) + 1;
+            int col = StdRandom.uniform(n) + 1;
+            p.open(row, col);
+        } while (!p.percolates());
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.TRIAL_NANOS.record(System.nanoTime() - start);
+        return (double) p.numberOfOpenSites() / (n * n);
+    }
+
+    // resets the grid and opens random sites until it percolates, returns
+    // the fraction of opened sites
+    static double trial(Percolation p, RandomGenerator random) {
+        long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+        int n = p.size();
+        p.reset();
+        do {
+            int row = BoundedRandom.uniform(random, n) + 1;
+            int col = BoundedRandom.uniform(random, n) + 1;
+            p.open(row, col);
+        } while (!p.percolates());
+        if (PercolationMetrics.ENABLED)
+            PercolationMetrics.TRIAL_NANOS.record(System.nanoTime() - start);
+        return (double) p.numberOfOpenSites() / (n * n);
+    }
+
+    /**
+     * State of the clusters right after a site was opened in a trial. The
+     * size histogram is given as a delta: the opened site merged the
+     * clusters of {@code mergedSizes} into one cluster of
+     * {@code clusterSize}, so applying the deltas of a trial in order to an
+     * empty histogram gives the histogram of the grid after each step
+     */
+    public static final class ClusterStep {
+        public final int trial;
+        public final int openSites;
+        public final int clusterCount;
+        public final int largestCluster;
+        public final boolean percolates;
+
+        /**
+         * Size of the cluster holding the opened site
+         */
+        public final int clusterSize;
+        private final int[] mergedSizes;
+
+        ClusterStep(int trial, int openSites, int clusterCount, int largestCluster, boolean percolates,
+                int clusterSize, int[] mergedSizes) {
+            this.trial = trial;
+            this.openSites = openSites;
+            this.clusterCount = clusterCount;
+            this.largestCluster = largestCluster;
+            this.percolates = percolates;
+            this.clusterSize = clusterSize;
+            this.mergedSizes = mergedSizes;
+        }
+
+        // sizes of the neighbour clusters merged by the opened site, empty if
+        // it started a new cluster
+        public int[] mergedSizes() {
+            return mergedSizes.clone();
+        }
+
+        // applies the step to the histogram indexed by cluster size
+        public void applyTo(int[] histogram) {
+            for (int s : mergedSizes)
+                histogram[s]--;
+            histogram[clusterSize]++;
+        }
+    }
+
+    // evolution of the clusters in independent trials on an n-by-n grid, one
+    // step per newly opened site with the cluster size histogram delta, each
+    // trial ends with the step on which the grid percolates. Steps are
+    // produced lazily as the stream is consumed, so the trials are never kept
+    // in memory
+    public static Stream<ClusterStep> clusterSteps(int n, int trials, RandomGenerator random) {
+        validate(n, trials);
+        if (random == null)
+            throw new IllegalArgumentException("Random generator must not be null");
+
+        Percolation p = new Percolation(n, true);
+        Spliterator<ClusterStep> steps = new Spliterators.AbstractSpliterator<ClusterStep>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int trial = -1;
+            private boolean percolates = true;
+
+            public boolean tryAdvance(Consumer<? super ClusterStep> action) {
+                if (percolates) {
+                    if (++trial == trials)
+                        return false;
+                    p.reset();
+                }
+                int opened = p.numberOfOpenSites();
+                do {
+                    p.open(BoundedRandom.uniform(random, n) + 1, BoundedRandom.uniform(random, n) + 1);
+                } while (p.numberOfOpenSites() == opened);
+                percolates = p.percolates();
+
+                int[] mergedSizes = new int[p.mergedCount()];
+                int clusterSize = 1;
+                for (int i = 0; i < mergedSizes.length; i++) {
+                    mergedSizes[i] = p.merged(i);
+                    clusterSize += mergedSizes[i];
+                }
+                action.accept(new ClusterStep(trial, opened + 1, p.clusterCount(), p.largestCluster(), percolates,
+                        clusterSize, mergedSizes));
+                return true;
+            }
+        };
+        return StreamSupport.stream(steps, false);
+    }
+
+    /**
+     * Count, mean and sum of squared deviations of the results updated with
+     * Welford's method, so no results are kept
+     */
+    private static final class Moments {
+        int count;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        // sample standard deviation, NaN for a single result like StdStats
+        double stddev() {
+            return Math.sqrt(m2 / (count - 1));
+        }
+    }
+
+    // number of trials performed
+    public int trials() {
+        return trials;
     }
 
     // sample mean of percolation threshold
@@ -53,20 +337,58 @@ public class PercolationStats {
         return confidenceHi;
     }
 
+    // wall-clock time spent running the trials, in seconds
+    public double elapsedTime() {
+        return elapsedNanos / 1e9;
+    }
+
+    // number of trials completed per second of wall-clock time
+    public double throughput() {
+        return trials / elapsedTime();
+    }
+
+    // prints the statistics, one per line
+    void print() {
+        StdOut.printf("%-23s = %d\n", "trials", trials);
+        StdOut.printf("%-23s = %f\n", "mean", mean);
+        StdOut.printf("%-23s = %f\n", "stddev", stddev);
+        StdOut.printf("%-23s = [%f, %f]\n", "95% confidence interval", confidenceLo, confidenceHi);
+        StdOut.printf("%-23s = %.3f s\n", "elapsed time", elapsedTime());
+        StdOut.printf("%-23s = %.1f trials/s\n", "throughput", throughput());
+    }
+
     public static void main(String[] args) {
-        if (args.length != 2) {
-            StdOut.println("Usage: java PercolationStats n trials");
+        if (args.length < 2 || args.length > 4) {
+            StdOut.println("Usage: java PercolationStats n trials [workers [seed]]");
+            StdOut.println("       java PercolationStats n halfWidth maxTrials");
             StdOut.println("Where:");
-            StdOut.println("  n      - grid size, should be >= 1");
-            StdOut.println("  trials - number of experiments, should be >= 1");
+            StdOut.println("  n         - grid size, should be >= 1");
+            StdOut.println("  trials    - number of experiments, should be >= 1");
+            StdOut.println("  workers   - number of parallel workers, defaults to sequential run");
+            StdOut.println("  seed      - random seed for parallel run, defaults to current time");
+            StdOut.println("  halfWidth - target half-width of 95% confidence interval, e.g. 0.001");
+            StdOut.println("  maxTrials - maximum number of experiments");
+            StdOut.println("Run with -Dpercolation.metrics=true to print hot path metrics as JSON");
             return;
         }
         int n = Integer.parseInt(args[0]);
-        int trials = Integer.parseInt(args[1]);
-        PercolationStats stats = new PercolationStats(n, trials);
-        StdOut.printf("%-23s = %f\n", "mean", stats.mean());
-        StdOut.printf("%-23s = %f\n", "stddev", stats.stddev());
-        StdOut.printf("%-23s = [%f, %f]\n", "95% confidence interval", stats.confidenceLo(), stats.confidenceHi());
+        PercolationStats stats;
+        // any number but a plain integer, e.g. 0.001 or 1e-3, is half-width
+        if (!args[1].matches("\\d+")) {
+            if (args.length != 3)
+                throw new IllegalArgumentException("Adaptive run takes n, halfWidth and maxTrials");
+            stats = adaptive(n, Double.parseDouble(args[1]), Integer.parseInt(args[2]));
+        } else if (args.length > 2) {
+            int trials = Integer.parseInt(args[1]);
+            int workers = Integer.parseInt(args[2]);
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+            stats = new PercolationStats(n, trials, workers, seed);
+        } else {
+            stats = new PercolationStats(n, Integer.parseInt(args[1]));
+        }
+        stats.print();
+        if (PercolationMetrics.ENABLED)
+            StdOut.println(PercolationMetrics.toJson());
     }
 
-}
\ No newline at end of file
+}
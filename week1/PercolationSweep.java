@@ -0,0 +1,270 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.random.RandomGenerator;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Runs Percolation trials for several grid sizes in one JVM and streams every
+ * trial's result to {@code Sink} as soon as it's done, nothing is kept in
+ * memory but the trials in flight.
+ * <p>
+ * Each trial is a separate task, tasks are submitted largest grids first, so
+ * the long trials start early and the short ones fill the workers at the end
+ * of the sweep. At most a few tasks per worker are in flight, the next one is
+ * submitted when any finishes. Every task gets its own random stream split
+ * off the seed in submission order, so results of each trial are reproducible
+ * regardless of the number of workers
+ *
+ * @author Alexander Panko
+ */
+public class PercolationSweep {
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+
+    /**
+     * Receives results of the trials in the order they finish, called from
+     * one thread
+     */
+    public interface Sink {
+        void accept(int n, int trial, double threshold, int openCount, long nanos) throws IOException;
+    }
+
+    private static final class Result {
+        final int n, trial, openCount;
+        final double threshold;
+        final long nanos;
+
+        Result(int n, int trial, double threshold, int openCount, long nanos) {
+            this.n = n;
+            this.trial = trial;
+            this.threshold = threshold;
+            this.openCount = openCount;
+            this.nanos = nanos;
+        }
+    }
+
+    // the last grid used by the worker, reused while sizes repeat
+    private static final ThreadLocal<Percolation> GRID = new ThreadLocal<Percolation>();
+
+    private PercolationSweep() {
+    }
+
+    /**
+     * Runs the trials of all the sizes
+     *
+     * @param sizes   - grid sizes
+     * @param trials  - number of trials for each size, same length as sizes
+     * @param workers - number of parallel workers
+     * @param seed    - random seed
+     * @param sink    - receiver of the results
+     */
+    public static void run(int[] sizes, int[] trials, int workers, long seed, Sink sink) throws IOException {
+        if (sizes.length != trials.length)
+            throw new IllegalArgumentException("sizes and trials must have the same length");
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be >= 1");
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] < 1 || trials[i] < 1)
+                throw new IllegalArgumentException("Size n and number of trials both must be >= 1");
+        }
+
+        // largest grids first
+        Integer[] order = new Integer[sizes.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[b], sizes[a]));
+
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ExecutorCompletionService<Result> done = new ExecutorCompletionService<Result>(pool);
+        try {
+            int inFlight = 0;
+            for (int i : order) {
+                for (int trial = 0; trial < trials[i]; trial++) {
+                    if (inFlight == workers * IN_FLIGHT_PER_WORKER) {
+                        write(done.take().get(), sink);
+                        inFlight--;
+                    }
+                    done.submit(task(sizes[i], trial, root.split()));
+                    inFlight++;
+                }
+            }
+            for (; inFlight > 0; inFlight--)
+                write(done.take().get(), sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running trials", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Trial failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Callable<Result> task(int n, int trial, RandomGenerator random) {
+        return () -> {
+            Percolation p = GRID.get();
+            if (p == null || p.size() != n) {
+                GRID.remove();
+                p = new Percolation(n);
+                GRID.set(p);
+            }
+            long start = System.nanoTime();
+            double threshold = PercolationStats.trial(p, random);
+            long nanos = System.nanoTime() - start;
+            return new Result(n, trial, threshold, p.numberOfOpenSites(), nanos);
+        };
+    }
+
+    private static void write(Result r, Sink sink) throws IOException {
+        sink.accept(r.n, r.trial, r.threshold, r.openCount, r.nanos);
+    }
+
+    /**
+     * Writes the results as CSV with a header line
+     */
+    public static final class CsvSink implements Sink, AutoCloseable {
+        private final Writer out;
+        private final boolean owned;
+
+        public CsvSink(Writer out) throws IOException {
+            this(out, true);
+        }
+
+        /**
+         * @param out   - writer for the results
+         * @param owned - {@code false} if the writer wraps a stream that must
+         *              stay open, like {@code System.out}, then {@code close}
+         *              only flushes it
+         */
+        public CsvSink(Writer out, boolean owned) throws IOException {
+            this.out = out;
+            this.owned = owned;
+            out.write("n,trial,threshold,open,nanos\n");
+        }
+
+        public void accept(int n, int trial, double threshold, int openCount, long nanos) throws IOException {
+            out.write(n + "," + trial + "," + threshold + "," + openCount + "," + nanos + "\n");
+        }
+
+        public void close() throws IOException {
+            if (owned)
+                out.close();
+            else
+                out.flush();
+        }
+    }
+
+    /**
+     * Writes the results as big-endian binary records of 28 bytes: int n, int
+     * trial, double threshold, int open count, long nanos, after an
+     * {@code int} magic number
+     */
+    public static final class BinarySink implements Sink, AutoCloseable {
+        public static final int MAGIC = 0x50535750;
+
+        private final DataOutputStream out;
+
+        public BinarySink(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.writeInt(MAGIC);
+        }
+
+        public void accept(int n, int trial, double threshold, int openCount, long nanos) throws IOException {
+            out.writeInt(n);
+            out.writeInt(trial);
+            out.writeDouble(threshold);
+            out.writeInt(openCount);
+            out.writeLong(nanos);
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // parses comma separated sizes, each is n or from:to:step range, step
+    // *k multiplies the size by k
+    static int[] parseSizes(String spec) {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (String item : spec.split(",")) {
+            String[] range = item.split(":");
+            if (range.length == 1) {
+                sizes.add(Integer.parseInt(range[0]));
+                continue;
+            }
+            if (range.length != 3)
+                throw new IllegalArgumentException("Bad range " + item + ", expected from:to:step");
+            int from = Integer.parseInt(range[0]);
+            int to = Integer.parseInt(range[1]);
+            boolean multiply = range[2].startsWith("*");
+            int step = Integer.parseInt(multiply ? range[2].substring(1) : range[2]);
+            if (from < 1 || step < (multiply ? 2 : 1))
+                throw new IllegalArgumentException("Bad range " + item);
+            for (long n = from; n <= to; n = multiply ? n * step : n + step)
+                sizes.add((int) n);
+        }
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = sizes.get(i);
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 5) {
+            StdOut.println("Usage: java PercolationSweep sizes trials output [workers [seed]]");
+            StdOut.println("Where:");
+            StdOut.println("  sizes   - comma separated grid sizes or from:to:step ranges, e.g. 16:1024:*2,1500");
+            StdOut.println("  trials  - number of trials for all sizes, or comma separated count per size");
+            StdOut.println("  output  - file ending with .bin for binary records, any other for CSV, - for stdout");
+            StdOut.println("  workers - number of parallel workers, defaults to available processors");
+            StdOut.println("  seed    - random seed, defaults to current time");
+            return;
+        }
+        int[] sizes = parseSizes(args[0]);
+        String[] counts = args[1].split(",");
+        int[] trials = new int[sizes.length];
+        if (counts.length != 1 && counts.length != sizes.length)
+            throw new IllegalArgumentException("Expected 1 or " + sizes.length + " trial counts");
+        for (int i = 0; i < sizes.length; i++)
+            trials[i] = Integer.parseInt(counts[counts.length == 1 ? 0 : i]);
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        String output = args[2];
+        long start = System.nanoTime();
+        if (output.endsWith(".bin")) {
+            try (BinarySink sink = new BinarySink(new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(Paths.get(output)), 1 << 16)))) {
+                run(sizes, trials, workers, seed, sink);
+            }
+        } else {
+            boolean stdout = output.equals("-");
+            Writer writer = stdout
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+            try (CsvSink sink = new CsvSink(new BufferedWriter(writer, 1 << 16), !stdout)) {
+                run(sizes, trials, workers, seed, sink);
+            }
+        }
+        if (!output.equals("-"))
+            StdOut.printf("%d sizes, %d trials in %.3f s\n", sizes.length, Arrays.stream(trials).sum(),
+                    (System.nanoTime() - start) / 1e9);
+    }
+}
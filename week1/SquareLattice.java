@@ -0,0 +1,76 @@
+/**
+ * N*N square lattice, site (row, col) has index {@code row * n + col} with
+ * 0-based row and col. The flow goes along rows, columns optionally wrap
+ * around, making the lattice a cylinder without left and right edges
+ *
+ * @author Alexander Panko
+ */
+public class SquareLattice implements Lattice {
+    private final int n, len;
+    private final boolean periodic;
+
+    /**
+     * Creates N*N lattice
+     *
+     * @param n        - lattice's side length
+     * @param periodic - {@code true} to wrap columns around
+     */
+    public SquareLattice(int n, boolean periodic) {
+        if (n <= 0 || (long) n * n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Size n must be between 1 and 46340");
+        this.n = n;
+        this.len = n * n;
+        this.periodic = periodic;
+    }
+
+    /**
+     * Returns index of the site
+     *
+     * @param row - 0-based row index
+     * @param col - 0-based column index
+     * @return {@code int}
+     */
+    public int site(int row, int col) {
+        if (row < 0 || col < 0 || row >= n || col >= n)
+            throw new IllegalArgumentException(String.format("row and col must be between 0 and %d", n - 1));
+        return row * n + col;
+    }
+
+    public int sites() {
+        return len;
+    }
+
+    public int axes() {
+        return 2;
+    }
+
+    public int neighbour(int p, int dir) {
+        int col;
+        switch (dir) {
+        case 0:
+            return p < len - n ? p + n : -1;
+        case 1:
+            return p >= n ? p - n : -1;
+        case 2:
+            col = p % n;
+            if (col < n - 1)
+                return p + 1;
+            return periodic ? p - col : -1;
+        case 3:
+            col = p % n;
+            if (col > 0)
+                return p - 1;
+            return periodic ? p + n - 1 : -1;
+        default:
+            throw new IllegalArgumentException("Direction must be between 0 and 3");
+        }
+    }
+
+    public boolean isTop(int p) {
+        return p < n;
+    }
+
+    public boolean isBottom(int p) {
+        return p >= len - n;
+    }
+}
@@ -0,0 +1,403 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * This class solves the "real world" Percolation problem for a single huge
+ * grid on several threads. The grid is split into horizontal strips, each
+ * strip has its own union-find over its sites, and batches of sites given to
+ * {@code openAll} are opened by all strips in parallel.
+ * <p>
+ * Strips know nothing about each other, so the global answer is built lazily
+ * on the first query after opening: each strip links its boundary rows sites
+ * lying in the same local component, these links and the open sites facing
+ * each other across strip borders are merged in a small union-find over the
+ * boundary rows with virtual top, and then each strip marks the local
+ * components connected to the virtual top as full. A site is full if its
+ * local component is
+ *
+ * @author Alexander Panko
+ */
+public class StripedPercolation implements AutoCloseable {
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int size;
+
+    private final Strip[] strips;
+
+    /**
+     * Union-find over boundary rows of all the strips, strip s has top row
+     * nodes from s*2n and bottom row nodes from s*2n+n, followed by virtual
+     * top node. There is no virtual bottom, it would make all the open bottom
+     * row sites full once the grid percolates
+     */
+    private final GridUnionFind boundary;
+    private final int virtualTop;
+    private final boolean[] fullNode;
+
+    /**
+     * {@code boolean} variable showing if sites were opened since the last
+     * reduction
+     */
+    private boolean dirty;
+    private boolean percolates;
+
+    private final ExecutorService pool;
+
+    /**
+     * Creates N*N grid with all sites initially blocked split into given
+     * number of strips, each strip is processed by its own thread
+     *
+     * @param n      - grid's side length
+     * @param strips - number of strips, at most n
+     */
+    public StripedPercolation(int n, int strips) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Size n must be >= 1");
+        if (strips < 1)
+            throw new IllegalArgumentException("Number of strips must be >= 1");
+        size = n;
+        strips = Math.min(strips, n);
+
+        this.strips = new Strip[strips];
+        for (int s = 0; s < strips; s++) {
+            int from = (int) ((long) n * s / strips);
+            int to = (int) ((long) n * (s + 1) / strips);
+            this.strips[s] = new Strip(s, from, to - from);
+        }
+
+        virtualTop = strips * 2 * n;
+        boundary = new GridUnionFind(virtualTop + 1);
+        fullNode = new boolean[virtualTop];
+
+        pool = Executors.newFixedThreadPool(strips);
+    }
+
+    /**
+     * Opens the site if it is not open already
+     *
+     * @param row - row index
+     * @param col - col index
+     */
+    public void open(int row, int col) {
+        validate(row, col);
+        Strip s = strip(row - 1);
+        if (s.open(s.pos(row - 1, col - 1)))
+            dirty = true;
+    }
+
+    /**
+     * Opens all the given sites, the sites are bucketed by strips and each
+     * strip opens its sites in parallel with the others
+     *
+     * @param rows - row indexes
+     * @param cols - column indexes, same length as rows
+     */
+    public void openAll(int[] rows, int[] cols) {
+        if (rows.length != cols.length)
+            throw new IllegalArgumentException("rows and cols must have the same length");
+        for (int i = 0; i < rows.length; i++)
+            validate(rows[i], cols[i]);
+
+        int[] counts = new int[strips.length];
+        for (int row : rows)
+            counts[strip(row - 1).index]++;
+        for (Strip s : strips) {
+            if (s.pending.length < counts[s.index])
+                s.pending = new int[counts[s.index]];
+            s.pendingCount = 0;
+        }
+        for (int i = 0; i < rows.length; i++) {
+            Strip s = strip(rows[i] - 1);
+            s.pending[s.pendingCount++] = s.pos(rows[i] - 1, cols[i] - 1);
+        }
+
+        run(i -> {
+            Strip s = strips[i];
+            for (int j = 0; j < s.pendingCount; j++)
+                s.open(s.pending[j]);
+        });
+        dirty = true;
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates, {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        reduce();
+        return percolates;
+    }
+
+    /**
+     * Shows if the site with given column and row is open
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is open, {@code false} if it's not
+     */
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+        Strip s = strip(row - 1);
+        return s.state[s.pos(row - 1, col - 1)] != 0;
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param row - row index
+     * @param col - column index
+     * @return {@code true} if site is full, {@code false} if it's not
+     */
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+        reduce();
+        Strip s = strip(row - 1);
+        int p = s.pos(row - 1, col - 1);
+        return s.state[p] != 0 && s.isFullRoot(s.qf.find(p));
+    }
+
+    /**
+     * Returns count of opened sites
+     *
+     * @return {@code long}
+     */
+    public long numberOfOpenSites() {
+        long count = 0;
+        for (Strip s : strips)
+            count += s.openedCount;
+        return count;
+    }
+
+    /**
+     * Stops the strips' threads
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    // merges boundary rows of the strips and marks full local components
+    private void reduce() {
+        if (!dirty)
+            return;
+
+        run(i -> strips[i].linkBoundary());
+
+        boundary.reset();
+        Strip first = strips[0];
+        for (int c = 0; c < size; c++) {
+            if (first.state[c] != 0)
+                boundary.union(first.topNode(c), virtualTop);
+        }
+        for (Strip s : strips) {
+            for (int j = 0; j < s.linkCount; j += 2)
+                boundary.union(s.links[j], s.links[j + 1]);
+            if (s.index + 1 == strips.length)
+                continue;
+            Strip next = strips[s.index + 1];
+            int bottom = s.pos(s.from + s.rows - 1, 0);
+            for (int c = 0; c < size; c++) {
+                if (s.state[bottom + c] != 0 && next.state[c] != 0)
+                    boundary.union(s.bottomNode(c), next.topNode(c));
+            }
+        }
+        int top = boundary.find(virtualTop);
+        for (int node = 0; node < fullNode.length; node++)
+            fullNode[node] = boundary.find(node) == top;
+
+        Strip last = strips[strips.length - 1];
+        percolates = false;
+        for (int c = 0; c < size && !percolates; c++)
+            percolates = fullNode[last.bottomNode(c)];
+
+        run(i -> strips[i].markFull());
+        dirty = false;
+    }
+
+    // runs the task for each strip on the pool and waits for all of them
+    private void run(IntConsumer task) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(strips.length);
+        for (int s = 0; s < strips.length; s++) {
+            int index = s;
+            tasks.add(() -> {
+                task.accept(index);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks))
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing strips", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Strip failed", e.getCause());
+        }
+    }
+
+    private Strip strip(int row) {
+        int s = (int) (((long) row * strips.length + strips.length - 1) / size);
+        while (strips[s].from > row)
+            s--;
+        return strips[s];
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || col < 1 || row > size || col > size)
+            throw new IllegalArgumentException(String.format("row and col must be between 1 and %d", size));
+    }
+
+    /**
+     * Rows [from, from + rows) of the grid with local union-find, accessed
+     * only by one thread at a time
+     */
+    private final class Strip {
+        final int index, from, rows, len;
+        final byte[] state;
+        final GridUnionFind qf;
+
+        /**
+         * Bitset of local roots of full components
+         */
+        final long[] full;
+        int openedCount;
+
+        int[] pending = new int[0];
+        int pendingCount;
+
+        /**
+         * Pairs of boundary nodes lying in the same local component
+         */
+        final int[] links;
+        int linkCount;
+        final long[] keys;
+
+        Strip(int index, int from, int rows) {
+            this.index = index;
+            this.from = from;
+            this.rows = rows;
+            len = rows * size;
+            state = new byte[len];
+            qf = new GridUnionFind(len);
+            full = new long[(len + 63) >>> 6];
+            links = new int[4 * size];
+            keys = new long[2 * size];
+        }
+
+        int pos(int row, int col) {
+            return (row - from) * size + col;
+        }
+
+        int topNode(int col) {
+            return index * 2 * size + col;
+        }
+
+        int bottomNode(int col) {
+            return index * 2 * size + size + col;
+        }
+
+        // returns false if the site is already open
+        boolean open(int p) {
+            if (state[p] != 0)
+                return false;
+            state[p] = 1;
+            openedCount++;
+
+            int col = p % size;
+            if (col > 0 && state[p - 1] != 0)
+                qf.union(p, p - 1);
+            if (col < size - 1 && state[p + 1] != 0)
+                qf.union(p, p + 1);
+            if (p >= size && state[p - size] != 0)
+                qf.union(p, p - size);
+            if (p < len - size && state[p + size] != 0)
+                qf.union(p, p + size);
+            return true;
+        }
+
+        // pairs up boundary nodes by local root, sorting (root, node) keys
+        void linkBoundary() {
+            int count = 0;
+            int bottom = len - size;
+            for (int c = 0; c < size; c++) {
+                if (state[c] != 0)
+                    keys[count++] = ((long) qf.find(c) << 32) | topNode(c);
+                if (state[bottom + c] != 0)
+                    keys[count++] = ((long) qf.find(bottom + c) << 32) | bottomNode(c);
+            }
+            Arrays.sort(keys, 0, count);
+
+            linkCount = 0;
+            for (int i = 1; i < count; i++) {
+                if (keys[i] >>> 32 == keys[i - 1] >>> 32) {
+                    links[linkCount++] = (int) keys[i - 1];
+                    links[linkCount++] = (int) keys[i];
+                }
+            }
+        }
+
+        void markFull() {
+            Arrays.fill(full, 0);
+            int bottom = len - size;
+            for (int c = 0; c < size; c++) {
+                if (state[c] != 0 && fullNode[topNode(c)])
+                    setFullRoot(qf.find(c));
+                if (state[bottom + c] != 0 && fullNode[bottomNode(c)])
+                    setFullRoot(qf.find(bottom + c));
+            }
+        }
+
+        void setFullRoot(int root) {
+            full[root >>> 6] |= 1L << root;
+        }
+
+        boolean isFullRoot(int root) {
+            return (full[root >>> 6] & (1L << root)) != 0;
+        }
+    }
+
+    // opens random batches until the grid percolates, compares strips with
+    // a single strip
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            StdOut.println("Usage: java StripedPercolation n [strips [batch]]");
+            StdOut.println("Where:");
+            StdOut.println("  n      - grid size, should be >= 1");
+            StdOut.println("  strips - number of strips, defaults to available processors");
+            StdOut.println("  batch  - sites opened per openAll, defaults to n*n/100");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        int strips = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(1, (int) ((long) n * n / 100));
+
+        int[] rows = new int[batch];
+        int[] cols = new int[batch];
+        for (int k : new int[] { 1, strips }) {
+            StdRandom.setSeed(1);
+            long start = System.nanoTime();
+            try (StripedPercolation p = new StripedPercolation(n, k)) {
+                while (!p.percolates()) {
+                    for (int i = 0; i < batch; i++) {
+                        rows[i] = StdRandom.uniform(n) + 1;
+                        cols[i] = StdRandom.uniform(n) + 1;
+                    }
+                    p.openAll(rows, cols);
+                }
+                StdOut.printf("%3d strips: percolates with %d open sites, %.3f s\n", k, p.numberOfOpenSites(),
+                        (System.nanoTime() - start) / 1e9);
+            }
+        }
+    }
+}
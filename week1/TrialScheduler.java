@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Small work-stealing scheduler running percolation trials. Every worker owns
+ * a {@code WorkStealingDeque} of trial ids, takes trials from its own deque
+ * and steals from the others when it runs out. All trials are initially
+ * queued to the first worker, so the rest of them start by stealing.
+ * Each trial gets its own random stream split off the seed, so the results
+ * don't depend on which worker runs the trial. If a trial fails, the other
+ * workers stop after their current trials and {@code run} throws
+ *
+ * @author Alexander Panko
+ */
+public class TrialScheduler {
+    private final int workers;
+    private final AtomicInteger steals = new AtomicInteger();
+
+    /**
+     * Creates scheduler with given number of workers
+     *
+     * @param workers - number of worker threads
+     */
+    public TrialScheduler(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be >= 1");
+        this.workers = workers;
+    }
+
+    /**
+     * Runs independent trials on an n-by-n grid
+     *
+     * @param n      - grid's side length
+     * @param trials - number of trials
+     * @param seed   - random seed
+     * @return {@code double} array of percolation thresholds, one per trial
+     */
+    public double[] run(int n, int trials, long seed) throws InterruptedException {
+        if (n < 1 || trials < 1)
+            throw new IllegalArgumentException("Size n and number of trials both must be >= 1");
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[trials];
+        for (int i = 0; i < trials; i++)
+            randoms[i] = root.split();
+
+        List<WorkStealingDeque<Integer>> queues = new ArrayList<WorkStealingDeque<Integer>>(workers);
+        for (int w = 0; w < workers; w++)
+            queues.add(new WorkStealingDeque<Integer>());
+        for (int i = trials - 1; i >= 0; i--)
+            queues.get(0).addLast(i);
+
+        double[] results = new double[trials];
+        AtomicInteger remaining = new AtomicInteger(trials);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            int id = w;
+            threads[w] = new Thread(() -> {
+                try {
+                    Percolation p = new Percolation(n);
+                    WorkStealingDeque<Integer> own = queues.get(id);
+                    int victim = id;
+                    while (remaining.get() > 0) {
+                        Integer trial = own.pollLast();
+                        if (trial == null) {
+                            victim = (victim + 1) % workers;
+                            if (victim == id)
+                                continue;
+                            trial = queues.get(victim).pollFirst();
+                            if (trial == null) {
+                                Thread.yield();
+                                continue;
+                            }
+                            steals.incrementAndGet();
+                        }
+                        results[trial] = PercolationStats.trial(p, randoms[trial]);
+                        remaining.decrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    // keep the first failure and stop the other workers
+                    failure.compareAndSet(null, e);
+                    remaining.set(0);
+                }
+            });
+            threads[w].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        if (failure.get() != null)
+            throw new IllegalStateException("Trial failed", failure.get());
+        return results;
+    }
+
+    /**
+     * Returns number of trials stolen by workers from each other
+     *
+     * @return {@code int}
+     */
+    public int steals() {
+        return steals.get();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3 || args.length > 4) {
+            StdOut.println("Usage: java TrialScheduler n trials workers [seed]");
+            StdOut.println("Where:");
+            StdOut.println("  n       - grid size, should be >= 1");
+            StdOut.println("  trials  - number of experiments, should be >= 1");
+            StdOut.println("  workers - number of worker threads, should be >= 1");
+            StdOut.println("  seed    - random seed, defaults to current time");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        int workers = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        TrialScheduler scheduler = new TrialScheduler(workers);
+        long start = System.nanoTime();
+        PercolationStats.of(start, scheduler.run(n, trials, seed)).print();
+        StdOut.printf("%-23s = %d\n", "steals", scheduler.steals());
+    }
+}
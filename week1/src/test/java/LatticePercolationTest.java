@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code LatticePercolation} against breadth-first search over the
+ * lattice
+ *
+ * @author Alexander Panko
+ */
+class LatticePercolationTest {
+
+    @Test
+    void squareSitesMatchPercolation() {
+        Random random = new Random(24);
+        int n = 15;
+        SquareLattice lattice = new SquareLattice(n, false);
+        LatticePercolation lp = new LatticePercolation(lattice, false);
+        Percolation p = new Percolation(n);
+        for (int step = 0; step < n * n; step++) {
+            int row = random.nextInt(n);
+            int col = random.nextInt(n);
+            lp.openSite(lattice.site(row, col));
+            p.open(row + 1, col + 1);
+            assertEquals(p.percolates(), lp.percolates());
+        }
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++)
+                assertEquals(p.isFull(row + 1, col + 1), lp.isFull(lattice.site(row, col)));
+        }
+    }
+
+    @Test
+    void sitesMatchOracle() {
+        for (Lattice lattice : lattices()) {
+            LatticePercolation lp = new LatticePercolation(lattice, false);
+            Random random = new Random(lattice.sites());
+            // reset must leave no trace of the previous trial
+            for (int trial = 0; trial < 3; trial++) {
+                lp.reset();
+                boolean[] open = new boolean[lattice.sites()];
+                for (int step = 0; step < lattice.sites(); step++) {
+                    int e = random.nextInt(open.length);
+                    lp.openSite(e);
+                    open[e] = true;
+                    if (step % 7 == 0)
+                        assertLattice(lattice, false, open, lp);
+                }
+                assertLattice(lattice, false, open, lp);
+            }
+        }
+    }
+
+    @Test
+    void bondsMatchOracle() {
+        for (Lattice lattice : lattices()) {
+            LatticePercolation lp = new LatticePercolation(lattice, true);
+            Random random = new Random(lattice.sites());
+            int axes = lattice.axes();
+            for (int trial = 0; trial < 3; trial++) {
+                lp.reset();
+                boolean[] open = new boolean[lattice.sites() * axes];
+                for (int step = 0; step < open.length; step++) {
+                    int e = random.nextInt(open.length);
+                    if (lattice.neighbour(e / axes, 2 * (e % axes)) < 0)
+                        continue;
+                    lp.openBond(e / axes, e % axes);
+                    open[e] = true;
+                    if (step % 7 == 0)
+                        assertLattice(lattice, true, open, lp);
+                }
+                assertLattice(lattice, true, open, lp);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWrongMode() {
+        SquareLattice lattice = new SquareLattice(3, false);
+        assertThrows(UnsupportedOperationException.class, () -> new LatticePercolation(lattice, true).openSite(0));
+        assertThrows(UnsupportedOperationException.class, () -> new LatticePercolation(lattice, false).openBond(0, 0));
+        // the bottom row has no bond along the flow
+        assertThrows(IllegalArgumentException.class, () -> new LatticePercolation(lattice, true).openBond(6, 0));
+    }
+
+    private static Lattice[] lattices() {
+        return new Lattice[] { new SquareLattice(1, false), new SquareLattice(9, false), new SquareLattice(9, true),
+            new CubicLattice(4, false), new CubicLattice(4, true) };
+    }
+
+    private static void assertLattice(Lattice lattice, boolean bonds, boolean[] open, LatticePercolation lp) {
+        boolean[] full = full(lattice, bonds, open);
+        boolean percolates = false;
+        for (int p = 0; p < lattice.sites(); p++) {
+            assertEquals(full[p], lp.isFull(p), "full " + p);
+            percolates |= full[p] && lattice.isBottom(p);
+        }
+        assertEquals(percolates, lp.percolates());
+    }
+
+    // floods the lattice from the top layer through open sites, or through
+    // open bonds when all the sites are open
+    private static boolean[] full(Lattice lattice, boolean bonds, boolean[] open) {
+        int sites = lattice.sites();
+        int axes = lattice.axes();
+        boolean[][] edges = new boolean[sites][sites];
+        for (int p = 0; p < sites; p++) {
+            for (int axis = 0; axis < axes; axis++) {
+                int q = lattice.neighbour(p, 2 * axis);
+                if (q >= 0 && (bonds ? open[p * axes + axis] : open[p] && open[q])) {
+                    edges[p][q] = true;
+                    edges[q][p] = true;
+                }
+            }
+        }
+
+        boolean[] full = new boolean[sites];
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        for (int p = 0; p < sites; p++) {
+            if (lattice.isTop(p) && (bonds || open[p])) {
+                full[p] = true;
+                queue.add(p);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int p = queue.poll();
+            for (int q = 0; q < sites; q++) {
+                if (edges[p][q] && !full[q]) {
+                    full[q] = true;
+                    queue.add(q);
+                }
+            }
+        }
+        return full;
+    }
+}
@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@code OffHeapPercolation} against the breadth-first search oracle,
+ * including the grid restored from its file
+ *
+ * @author Alexander Panko
+ */
+class OffHeapPercolationTest {
+    // grid's offset in the file, and the offsets of the open count and the
+    // dirty flag in the header
+    private static final int HEADER = 4096;
+    private static final int OPENED_COUNT = 12;
+    private static final int DIRTY = 21;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesOracle() throws IOException {
+        Random random = new Random(16);
+        for (int n : new int[] { 1, 2, 3, 5, 8, 13, 32 }) {
+            boolean[][] open = new boolean[n][n];
+            try (OffHeapPercolation p = new OffHeapPercolation(n)) {
+                for (int step = 0; step < n * n * 2; step++) {
+                    int i = random.nextInt(n);
+                    int j = random.nextInt(n);
+                    p.open(i + 1, j + 1);
+                    open[i][j] = true;
+                    if (step % n == 0)
+                        assertGrid(open, p);
+                }
+                assertGrid(open, p);
+            }
+        }
+    }
+
+    @Test
+    void restoresFlushedGrid() throws IOException {
+        Path file = dir.resolve("grid");
+        int n = 24;
+        boolean[][] open = openRandom(file, n, 250, new Random(3));
+        try (OffHeapPercolation p = new OffHeapPercolation(n, file)) {
+            assertGrid(open, p);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapPercolation(n + 1, file));
+    }
+
+    @Test
+    void recoversGridNotFlushedAfterChanges() throws IOException {
+        Path file = dir.resolve("grid");
+        int n = 24;
+        boolean[][] open = openRandom(file, n, 250, new Random(4));
+        boolean[][] full = PercolationOracle.full(open);
+
+        // a run killed in the middle of the fill: the flag is set, the count
+        // is stale and an open site which isn't full is marked full
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(DIRTY);
+            raf.write(1);
+            raf.seek(OPENED_COUNT);
+            raf.writeLong(0);
+            for (int p = 0; p < n * n; p++) {
+                if (open[p / n][p % n] && !full[p / n][p % n]) {
+                    raf.seek(HEADER + p / 4);
+                    int b = raf.read();
+                    int shift = (p % 4) * 2;
+                    raf.seek(HEADER + p / 4);
+                    raf.write((b & ~(3 << shift)) | (2 << shift));
+                    break;
+                }
+            }
+        }
+        try (OffHeapPercolation p = new OffHeapPercolation(n, file)) {
+            assertGrid(open, p);
+        }
+    }
+
+    private static boolean[][] openRandom(Path file, int n, int count, Random random) throws IOException {
+        boolean[][] open = new boolean[n][n];
+        try (OffHeapPercolation p = new OffHeapPercolation(n, file)) {
+            for (int k = 0; k < count; k++) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                p.open(i + 1, j + 1);
+                open[i][j] = true;
+            }
+        }
+        return open;
+    }
+
+    private static void assertGrid(boolean[][] open, OffHeapPercolation p) {
+        int n = open.length;
+        boolean[][] full = PercolationOracle.full(open);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(open[i][j], p.isOpen(i + 1, j + 1), "open " + (i + 1) + "," + (j + 1));
+                assertEquals(full[i][j], p.isFull(i + 1, j + 1), "full " + (i + 1) + "," + (j + 1));
+                if (open[i][j])
+                    count++;
+            }
+        }
+        assertEquals(count, p.numberOfOpenSites());
+        assertEquals(PercolationOracle.percolates(open), p.percolates());
+    }
+}
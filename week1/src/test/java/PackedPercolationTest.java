@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code PackedPercolation} against the breadth-first search oracle
+ *
+ * @author Alexander Panko
+ */
+class PackedPercolationTest {
+
+    @Test
+    void matchesOracle() {
+        Random random = new Random(5);
+        // sizes around the 4 sites per byte packing
+        for (int n : new int[] { 1, 2, 3, 4, 5, 7, 8, 9, 17, 32 }) {
+            PackedPercolation p = new PackedPercolation(n);
+            boolean[][] open = new boolean[n][n];
+            int count = 0;
+            for (int step = 0; step < n * n * 2; step++) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                p.open(i + 1, j + 1);
+                if (!open[i][j]) {
+                    open[i][j] = true;
+                    count++;
+                }
+                assertEquals(count, p.numberOfOpenSites());
+                if (step % n == 0)
+                    assertGrid(open, p);
+            }
+            assertGrid(open, p);
+        }
+    }
+
+    @Test
+    void rejectsSitesOutsideGrid() {
+        PackedPercolation p = new PackedPercolation(3);
+        assertThrows(IllegalArgumentException.class, () -> p.open(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> p.isOpen(1, 4));
+        assertThrows(IllegalArgumentException.class, () -> p.isFull(4, 1));
+    }
+
+    private static void assertGrid(boolean[][] open, PackedPercolation p) {
+        int n = open.length;
+        boolean[][] full = PercolationOracle.full(open);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(open[i][j], p.isOpen(i + 1, j + 1), "open " + (i + 1) + "," + (j + 1));
+                assertEquals(full[i][j], p.isFull(i + 1, j + 1), "full " + (i + 1) + "," + (j + 1));
+            }
+        }
+        assertEquals(PercolationOracle.percolates(open), p.percolates());
+    }
+}
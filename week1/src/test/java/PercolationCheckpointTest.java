@@ -0,0 +1,255 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests for {@code PercolationCheckpoint} and the snapshot format of
+ * {@code Percolation}
+ *
+ * @author Alexander Panko
+ */
+class PercolationCheckpointTest {
+    // offset of the order in a snapshot: size, histogram flag, generation,
+    // count, order flag
+    private static final int ORDER_OFFSET = 4 + 1 + 4 + 4 + 1;
+
+    // offset of the state array in a snapshot written without the order, it
+    // follows the encoding byte
+    private static final int STATE_OFFSET = ORDER_OFFSET + 1;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(PercolationCheckpoint.Encoding.class)
+    void restoresSnapshotAndLog(PercolationCheckpoint.Encoding encoding) throws IOException {
+        Path snapshot = dir.resolve("grid");
+        Path log = dir.resolve("grid.log");
+        Random random = new Random(17);
+        int n = 40;
+        Percolation p = new Percolation(n, true);
+        try (PercolationCheckpoint cp = new PercolationCheckpoint(p, snapshot, log, encoding)) {
+            cp.snapshot();
+            for (int i = 0; i < 600; i++) {
+                p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+                if (i == 300)
+                    cp.snapshot();
+                else if (i % 50 == 0)
+                    cp.append();
+            }
+            cp.append();
+        }
+        assertSame(p, PercolationCheckpoint.restore(snapshot, log));
+    }
+
+    @Test
+    void resetBeforeAppendTakesNewSnapshot() throws IOException {
+        Path snapshot = dir.resolve("grid");
+        Path log = dir.resolve("grid.log");
+        Percolation p = new Percolation(8);
+        try (PercolationCheckpoint cp = new PercolationCheckpoint(p, snapshot, log,
+                PercolationCheckpoint.Encoding.RLE)) {
+            cp.snapshot();
+            p.open(1, 1);
+            p.open(1, 2);
+            cp.append();
+            p.reset();
+            p.open(5, 5);
+            p.open(5, 4);
+            p.open(4, 4);
+            cp.append();
+        }
+        Percolation r = PercolationCheckpoint.restore(snapshot, log);
+        assertFalse(r.isOpen(1, 1));
+        assertFalse(r.isOpen(1, 2));
+        assertEquals(3, r.numberOfOpenSites());
+        assertSame(p, r);
+    }
+
+    @Test
+    void restoredGridAppendsAfterPartialRecord() throws IOException {
+        Path snapshot = dir.resolve("grid");
+        Path log = dir.resolve("grid.log");
+        Random random = new Random(23);
+        int n = 20;
+        Percolation p = new Percolation(n);
+        try (PercolationCheckpoint cp = new PercolationCheckpoint(p, snapshot, log,
+                PercolationCheckpoint.Encoding.BITMAP)) {
+            cp.snapshot();
+            for (int i = 0; i < 100; i++)
+                p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+            cp.append();
+        }
+        // the run was killed in the middle of a record
+        Files.write(log, new byte[] { 0, 0 }, StandardOpenOption.APPEND);
+
+        Percolation r = PercolationCheckpoint.restore(snapshot, log);
+        assertSame(p, r);
+        assertEquals(0, Files.size(log) % Integer.BYTES);
+
+        try (PercolationCheckpoint cp = new PercolationCheckpoint(r, snapshot, log,
+                PercolationCheckpoint.Encoding.BITMAP)) {
+            for (int i = 0; i < 100; i++) {
+                int row = random.nextInt(n) + 1;
+                int col = random.nextInt(n) + 1;
+                p.open(row, col);
+                r.open(row, col);
+            }
+            cp.append();
+        }
+        assertSame(p, PercolationCheckpoint.restore(snapshot, log));
+    }
+
+    @Test
+    void keepsOpeningOrderWhenAsked() throws IOException {
+        Path snapshot = dir.resolve("grid");
+        Path log = dir.resolve("grid.log");
+        Random random = new Random(5);
+        int n = 30;
+        Percolation p = new Percolation(n);
+        for (int i = 0; i < 400; i++)
+            p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+        try (PercolationCheckpoint cp = new PercolationCheckpoint(p, snapshot, log,
+                PercolationCheckpoint.Encoding.RLE, true)) {
+            cp.snapshot();
+        }
+        Percolation r = PercolationCheckpoint.restore(snapshot, log);
+        assertSame(p, r);
+        for (int i = 0; i < p.numberOfOpenSites(); i++)
+            assertEquals(p.opened(i), r.opened(i));
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path snapshot = dir.resolve("grid");
+        Files.write(snapshot, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertThrows(IOException.class, () -> PercolationCheckpoint.restore(snapshot, dir.resolve("grid.log")));
+    }
+
+    @Test
+    void rejectsFullSiteNotConnectedToTop() throws IOException {
+        Percolation p = new Percolation(4);
+        p.open(2, 2);
+        byte[] b = write(p, false);
+        b[STATE_OFFSET + 5] = 2;
+        assertThrows(IOException.class, () -> read(b));
+    }
+
+    @Test
+    void rejectsStateNotMatchingCount() throws IOException {
+        Percolation p = new Percolation(4);
+        p.open(2, 2);
+        byte[] b = write(p, false);
+        b[STATE_OFFSET + 10] = 1;
+        assertThrows(IOException.class, () -> read(b));
+    }
+
+    @Test
+    void rejectsUnknownSiteState() throws IOException {
+        Percolation p = new Percolation(4);
+        p.open(2, 2);
+        byte[] b = write(p, false);
+        b[STATE_OFFSET + 5] = 7;
+        assertThrows(IOException.class, () -> read(b));
+    }
+
+    @Test
+    void rejectsSiteOpenedTwiceInOrder() throws IOException {
+        Percolation p = new Percolation(4);
+        p.open(2, 2);
+        p.open(2, 3);
+        byte[] b = write(p, true);
+        // one byte deltas, the second one becomes zero
+        b[ORDER_OFFSET + 1] = 0;
+        assertThrows(IOException.class, () -> read(b));
+    }
+
+    @Test
+    void corruptedSnapshotFailsOrRestoresValidGrid() throws IOException {
+        Random random = new Random(9);
+        for (int it = 0; it < 2000; it++) {
+            int n = 2 + random.nextInt(8);
+            Percolation p = new Percolation(n);
+            for (int i = 0; i < n * n / 2; i++)
+                p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+            byte[] b = write(p, it % 2 == 0, PercolationCheckpoint.Encoding.values()[it % 3]);
+            // the grid size is left alone, a huge one is a valid allocation
+            b[4 + random.nextInt(b.length - 4)] ^= (byte) (1 << random.nextInt(8));
+            Percolation r;
+            try {
+                r = read(b);
+            } catch (IOException e) {
+                continue;
+            }
+            assertEquals(r.numberOfOpenSites(), countOpen(r));
+            assertEquals(percolatesByBfs(r), r.percolates());
+        }
+    }
+
+    private static byte[] write(Percolation p, boolean keepOrder) throws IOException {
+        return write(p, keepOrder, PercolationCheckpoint.Encoding.RAW);
+    }
+
+    private static byte[] write(Percolation p, boolean keepOrder, PercolationCheckpoint.Encoding encoding)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        p.write(new DataOutputStream(bytes), encoding, keepOrder);
+        return bytes.toByteArray();
+    }
+
+    private static Percolation read(byte[] b) throws IOException {
+        return Percolation.read(new DataInputStream(new ByteArrayInputStream(b)));
+    }
+
+    private static int countOpen(Percolation p) {
+        int n = p.size();
+        int count = 0;
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (p.isOpen(i, j))
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean percolatesByBfs(Percolation p) {
+        int n = p.size();
+        boolean[][] open = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++)
+                open[i][j] = p.isOpen(i + 1, j + 1);
+        }
+        return PercolationOracle.percolates(open);
+    }
+
+    private static void assertSame(Percolation expected, Percolation actual) {
+        int n = expected.size();
+        assertEquals(n, actual.size());
+        assertEquals(expected.numberOfOpenSites(), actual.numberOfOpenSites());
+        assertEquals(expected.percolates(), actual.percolates());
+        assertEquals(expected.clusterCount(), actual.clusterCount());
+        assertEquals(expected.largestCluster(), actual.largestCluster());
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                assertEquals(expected.isOpen(i, j), actual.isOpen(i, j), "open " + i + "," + j);
+                assertEquals(expected.isFull(i, j), actual.isFull(i, j), "full " + i + "," + j);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.ArrayDeque;
+
+/**
+ * Reference answers for the percolation backends computed by breadth-first
+ * search over the open sites from the top row
+ *
+ * @author Alexander Panko
+ */
+final class PercolationOracle {
+    private PercolationOracle() {
+    }
+
+    /**
+     * Returns full sites of the grid
+     *
+     * @param open - open sites, {@code open[row][col]} with 0-based indexes
+     * @return {@code boolean[][]} full sites
+     */
+    static boolean[][] full(boolean[][] open) {
+        int n = open.length;
+        boolean[][] full = new boolean[n][n];
+        ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+        for (int j = 0; j < n; j++) {
+            if (open[0][j]) {
+                full[0][j] = true;
+                queue.add(new int[] { 0, j });
+            }
+        }
+        int[][] moves = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+        while (!queue.isEmpty()) {
+            int[] site = queue.poll();
+            for (int[] m : moves) {
+                int i = site[0] + m[0];
+                int j = site[1] + m[1];
+                if (i >= 0 && i < n && j >= 0 && j < n && open[i][j] && !full[i][j]) {
+                    full[i][j] = true;
+                    queue.add(new int[] { i, j });
+                }
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Shows if any site in the bottom row is full
+     *
+     * @param open - open sites, {@code open[row][col]} with 0-based indexes
+     * @return {@code true} if the grid percolates
+     */
+    static boolean percolates(boolean[][] open) {
+        int n = open.length;
+        boolean[][] full = full(open);
+        for (int j = 0; j < n; j++) {
+            if (full[n - 1][j])
+                return true;
+        }
+        return false;
+    }
+}
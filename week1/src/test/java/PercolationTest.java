@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code Percolation} full sites and cluster statistics against
+ * breadth-first search
+ *
+ * @author Alexander Panko
+ */
+class PercolationTest {
+
+    @Test
+    void openMatchesOracle() {
+        Random random = new Random(25);
+        for (int n : new int[] { 1, 2, 3, 6, 17 }) {
+            Percolation p = new Percolation(n, true);
+            // reset must leave no trace of the previous trial
+            for (int trial = 0; trial < 3; trial++) {
+                p.reset();
+                boolean[][] open = new boolean[n][n];
+                for (int step = 0; step < n * n * 2; step++) {
+                    int i = random.nextInt(n);
+                    int j = random.nextInt(n);
+                    p.open(i + 1, j + 1);
+                    open[i][j] = true;
+                    if (step % n == 0)
+                        assertGrid(open, p);
+                }
+                assertGrid(open, p);
+            }
+        }
+    }
+
+    @Test
+    void deferredMatchesOracle() {
+        Random random = new Random(19);
+        for (int n : new int[] { 1, 3, 8, 21 }) {
+            Percolation p = new Percolation(n, true);
+            p.setDeferred(true);
+            boolean[][] open = new boolean[n][n];
+            for (int step = 0; step < n * n * 2; step++) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                p.open(i + 1, j + 1);
+                open[i][j] = true;
+                // queries fill the pending sites at random points
+                if (random.nextInt(n) == 0)
+                    assertGrid(open, p);
+            }
+            p.setDeferred(false);
+            assertGrid(open, p);
+        }
+    }
+
+    @Test
+    void openAllMatchesOracle() {
+        Random random = new Random(91);
+        int n = 25;
+        Percolation p = new Percolation(n, true);
+        boolean[][] open = new boolean[n][n];
+        for (int batch = 0; batch < 15; batch++) {
+            int[] rows = new int[60];
+            int[] cols = new int[rows.length];
+            for (int k = 0; k < rows.length; k++) {
+                rows[k] = random.nextInt(n) + 1;
+                cols[k] = random.nextInt(n) + 1;
+                open[rows[k] - 1][cols[k] - 1] = true;
+            }
+            p.openAll(rows, cols);
+            assertGrid(open, p);
+        }
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Percolation(0));
+        Percolation p = new Percolation(3);
+        assertThrows(IllegalArgumentException.class, () -> p.open(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> p.isFull(1, 4));
+        assertThrows(UnsupportedOperationException.class, () -> p.clustersOfSize(1));
+    }
+
+    private static void assertGrid(boolean[][] open, Percolation p) {
+        int n = open.length;
+        boolean[][] full = PercolationOracle.full(open);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(open[i][j], p.isOpen(i + 1, j + 1), "open " + (i + 1) + "," + (j + 1));
+                assertEquals(full[i][j], p.isFull(i + 1, j + 1), "full " + (i + 1) + "," + (j + 1));
+                if (open[i][j])
+                    count++;
+            }
+        }
+        assertEquals(count, p.numberOfOpenSites());
+        assertEquals(PercolationOracle.percolates(open), p.percolates());
+
+        int[] histogram = clusterSizes(open);
+        int clusters = 0;
+        int largest = 0;
+        for (int size = 1; size <= n * n; size++) {
+            assertEquals(histogram[size], p.clustersOfSize(size), "clusters of size " + size);
+            clusters += histogram[size];
+            if (histogram[size] > 0)
+                largest = size;
+        }
+        assertEquals(clusters, p.clusterCount());
+        assertEquals(largest, p.largestCluster());
+    }
+
+    // counts clusters of open sites of each size
+    private static int[] clusterSizes(boolean[][] open) {
+        int n = open.length;
+        int[] histogram = new int[n * n + 1];
+        boolean[][] seen = new boolean[n][n];
+        int[][] moves = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+        ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+        for (int i0 = 0; i0 < n; i0++) {
+            for (int j0 = 0; j0 < n; j0++) {
+                if (!open[i0][j0] || seen[i0][j0])
+                    continue;
+                int size = 0;
+                seen[i0][j0] = true;
+                queue.add(new int[] { i0, j0 });
+                while (!queue.isEmpty()) {
+                    int[] site = queue.poll();
+                    size++;
+                    for (int[] m : moves) {
+                        int i = site[0] + m[0];
+                        int j = site[1] + m[1];
+                        if (i >= 0 && i < n && j >= 0 && j < n && open[i][j] && !seen[i][j]) {
+                            seen[i][j] = true;
+                            queue.add(new int[] { i, j });
+                        }
+                    }
+                }
+                histogram[size]++;
+            }
+        }
+        return histogram;
+    }
+}
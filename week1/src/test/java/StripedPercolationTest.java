@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code StripedPercolation} against the breadth-first search oracle
+ *
+ * @author Alexander Panko
+ */
+class StripedPercolationTest {
+
+    @Test
+    void openMatchesOracle() {
+        Random random = new Random(18);
+        for (int n : new int[] { 1, 2, 5, 9, 20 }) {
+            // a strip per row is the most boundary rows
+            for (int strips : new int[] { 1, 2, 3, n }) {
+                boolean[][] open = new boolean[n][n];
+                try (StripedPercolation p = new StripedPercolation(n, strips)) {
+                    for (int step = 0; step < n * n * 2; step++) {
+                        int i = random.nextInt(n);
+                        int j = random.nextInt(n);
+                        p.open(i + 1, j + 1);
+                        open[i][j] = true;
+                        if (step % n == 0)
+                            assertGrid(open, p);
+                    }
+                    assertGrid(open, p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void openAllMatchesOracle() {
+        Random random = new Random(81);
+        int n = 30;
+        for (int strips : new int[] { 1, 4, 7 }) {
+            boolean[][] open = new boolean[n][n];
+            try (StripedPercolation p = new StripedPercolation(n, strips)) {
+                for (int batch = 0; batch < 12; batch++) {
+                    int[] rows = new int[80];
+                    int[] cols = new int[rows.length];
+                    for (int k = 0; k < rows.length; k++) {
+                        rows[k] = random.nextInt(n) + 1;
+                        cols[k] = random.nextInt(n) + 1;
+                        open[rows[k] - 1][cols[k] - 1] = true;
+                    }
+                    p.openAll(rows, cols);
+                    assertGrid(open, p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedPercolation(4, 0));
+        try (StripedPercolation p = new StripedPercolation(4, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> p.open(5, 1));
+            assertThrows(IllegalArgumentException.class, () -> p.openAll(new int[] { 1 }, new int[0]));
+        }
+    }
+
+    private static void assertGrid(boolean[][] open, StripedPercolation p) {
+        int n = open.length;
+        boolean[][] full = PercolationOracle.full(open);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(open[i][j], p.isOpen(i + 1, j + 1), "open " + (i + 1) + "," + (j + 1));
+                assertEquals(full[i][j], p.isFull(i + 1, j + 1), "full " + (i + 1) + "," + (j + 1));
+                if (open[i][j])
+                    count++;
+            }
+        }
+        assertEquals(count, p.numberOfOpenSites());
+        assertEquals(PercolationOracle.percolates(open), p.percolates());
+    }
+}
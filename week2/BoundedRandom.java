@@ -0,0 +1,90 @@
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Uniform random integers in [0, n) drawn from any {@code RandomGenerator}
+ * with Lemire's multiply-shift method: the high half of 64-bit product of a
+ * random 32-bit integer and n is the result, the low half tells when the
+ * result is biased and has to be drawn again. Rejection is rare and costs a
+ * division only when it may happen, there is no division on the fast path
+ *
+ * @author Alexander Panko
+ */
+public final class BoundedRandom {
+    private BoundedRandom() {
+    }
+
+    /**
+     * Returns uniform random integer in [0, n)
+     *
+     * @param random - source of random bits
+     * @param n      - exclusive upper bound
+     * @return {@code int}
+     */
+    public static int uniform(RandomGenerator random, int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Bound n must be >= 1");
+
+        long m = (random.nextInt() & 0xFFFFFFFFL) * n;
+        long low = m & 0xFFFFFFFFL;
+        if (low < n) {
+            // 2^32 mod n
+            long threshold = (0x100000000L - n) % n;
+            while (low < threshold) {
+                m = (random.nextInt() & 0xFFFFFFFFL) * n;
+                low = m & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    // throughput comparison of random sources
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 26;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Random shared = new Random();
+        SplittableRandom splittable = new SplittableRandom();
+        RandomGenerator xoroshiro = RandomGenerator.of("Xoroshiro128PlusPlus");
+
+        StdOut.printf("%d draws in [0, %d), Mops/s\n", count, n);
+        for (int round = 0; round < 3; round++) {
+            long sum = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                sum += StdRandom.uniform(n);
+            report("StdRandom.uniform", count, start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                sum += shared.nextInt(n);
+            report("Random.nextInt", count, start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                sum += splittable.nextInt(n);
+            report("SplittableRandom.nextInt", count, start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                sum += uniform(splittable, n);
+            report("uniform(SplittableRandom)", count, start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                sum += uniform(xoroshiro, n);
+            report("uniform(Xoroshiro128++)", count, start);
+
+            StdOut.printf("%-28s %d\n", "checksum", sum);
+        }
+    }
+
+    private static void report(String name, int count, long start) {
+        StdOut.printf("%-28s %8.1f\n", name, count / ((System.nanoTime() - start) / 1e3));
+    }
+}
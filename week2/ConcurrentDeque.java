@@ -0,0 +1,164 @@
+import java.util.NoSuchElementException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Double-ended queue with the same API as {@code Deque} which is safe to share
+ * between threads without locking. Built on top of the lock-free
+ * {@code ConcurrentLinkedDeque}, the size is kept in a striped counter, so it
+ * is O(1) but only weakly consistent while the deque is modified. Iterators
+ * are weakly consistent too and never throw
+ * {@code ConcurrentModificationException}
+ *
+ * @author Alexander Panko
+ */
+public class ConcurrentDeque<Item> implements Iterable<Item> {
+    private final ConcurrentLinkedDeque<Item> items = new ConcurrentLinkedDeque<Item>();
+    private final LongAdder size = new LongAdder();
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public int size() {
+        // removal may be counted before the matching add
+        long n = size.sum();
+        return n < 0 ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    public void addFirst(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        items.addFirst(item);
+        size.increment();
+    }
+
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        items.addLast(item);
+        size.increment();
+    }
+
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null)
+            throw new NoSuchElementException();
+        return item;
+    }
+
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null)
+            throw new NoSuchElementException();
+        return item;
+    }
+
+    // removes and returns the first item, or null if the deque is empty
+    public Item pollFirst() {
+        Item item = items.pollFirst();
+        if (item != null)
+            size.decrement();
+        return item;
+    }
+
+    // removes and returns the last item, or null if the deque is empty
+    public Item pollLast() {
+        Item item = items.pollLast();
+        if (item != null)
+            size.decrement();
+        return item;
+    }
+
+    public Iterator<Item> iterator() {
+        return new ListIterator();
+    }
+
+    private class ListIterator implements Iterator<Item> {
+        private final Iterator<Item> it = items.iterator();
+
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        public Item next() {
+            return it.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // contention benchmark against Deque guarded by a single lock
+    public static void main(String[] args) throws InterruptedException {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 22;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        StdOut.printf("%d operations split across threads, Mops/s\n", ops);
+        StdOut.printf("%8s %16s %16s\n", "threads", "locked Deque", "ConcurrentDeque");
+
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            Deque<Integer> locked = new Deque<Integer>();
+            ConcurrentDeque<Integer> concurrent = new ConcurrentDeque<Integer>();
+            double l = 0;
+            double c = 0;
+            for (int round = 0; round < 3; round++) {
+                l = run(threads, ops, (id, item) -> {
+                    synchronized (locked) {
+                        if (id % 2 == 0) {
+                            locked.addLast(item);
+                            locked.removeFirst();
+                        } else {
+                            locked.addFirst(item);
+                            locked.removeLast();
+                        }
+                    }
+                });
+                c = run(threads, ops, (id, item) -> {
+                    if (id % 2 == 0) {
+                        concurrent.addLast(item);
+                        concurrent.pollFirst();
+                    } else {
+                        concurrent.addFirst(item);
+                        concurrent.pollLast();
+                    }
+                });
+            }
+            StdOut.printf("%8d %16.2f %16.2f\n", threads, l, c);
+        }
+    }
+
+    private interface Op {
+        void apply(int thread, Integer item);
+    }
+
+    // runs ops split across threads, returns millions of operations per second
+    private static double run(int threads, int ops, Op op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        Integer item = 1;
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = ops / threads; i > 0; i--)
+                    op.apply(id, item);
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers)
+            w.join();
+        return (double) ops * 2 / (System.nanoTime() - begin) * 1e3;
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * {@code RingDeque} of {@code int} items kept in a primitive circular array,
+ * so neither the deque nor its iterator box the items
+ *
+ * @author Alexander Panko
+ */
+public class IntDeque implements Iterable<Integer> {
+    private static final int DEFAULT_MIN_CAPACITY = 8;
+    // the largest power of two array length
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int minCapacity;
+    private int[] items;
+    private int head;
+    private int size;
+
+    public IntDeque() {
+        this(DEFAULT_MIN_CAPACITY);
+    }
+
+    // minCapacity is rounded up to the power of two
+    public IntDeque(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Minimum capacity must be between 1 and 2^30");
+        int capacity = 1;
+        while (capacity < minCapacity)
+            capacity <<= 1;
+        this.minCapacity = capacity;
+        items = new int[capacity];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(int item) {
+        if (size == items.length)
+            grow();
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(int item) {
+        if (size == items.length)
+            grow();
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public int removeFirst() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrink();
+        return item;
+    }
+
+    public int removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        int item = items[(head + size - 1) & (items.length - 1)];
+        size--;
+        shrink();
+        return item;
+    }
+
+    private void grow() {
+        if (items.length == MAX_CAPACITY)
+            throw new IllegalStateException("Deque is full, it holds at most 2^30 items");
+        resize(items.length << 1);
+    }
+
+    private void shrink() {
+        if (size < items.length >> 2 && items.length >> 1 >= minCapacity)
+            resize(items.length >> 1);
+    }
+
+    private void resize(int capacity) {
+        assert capacity >= size;
+        int[] tmp = new int[capacity];
+        int tail = Math.min(size, items.length - head);
+        System.arraycopy(items, head, tmp, 0, tail);
+        System.arraycopy(items, 0, tmp, tail, size - tail);
+        items = tmp;
+        head = 0;
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new ListIterator();
+    }
+
+    private class ListIterator implements PrimitiveIterator.OfInt {
+        private int i;
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return items[(head + i++) & (items.length - 1)];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+
+        IntDeque q = new IntDeque(4);
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+
+        int count = 10;
+
+        StdOut.printf("Inserting: %d elements\n", count * 2);
+
+        for (int i = 1; i <= count; i++) {
+            StdOut.printf("addFirst(%d)\n", i * 10);
+            q.addFirst(i * 10);
+            StdOut.printf("addLast(%d)\n", i * 100);
+            q.addLast(i * 100);
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+
+        StdOut.println("Iterating:");
+        PrimitiveIterator.OfInt it = q.iterator();
+        while (it.hasNext()) {
+            StdOut.printf("Element: %d\n", it.nextInt());
+        }
+
+        StdOut.printf("Removing: %d elements\n", count * 2);
+        for (int i = 0; i < count; i++) {
+            StdOut.printf("removeFirst = %d\n", q.removeFirst());
+            StdOut.printf("removeLast = %d\n", q.removeLast());
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+    }
+}
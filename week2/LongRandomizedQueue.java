@@ -0,0 +1,284 @@
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.random.RandomGenerator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * {@code RandomizedQueue} of {@code long} items kept in a primitive array, so
+ * neither the queue nor its iterators box the items. Has the same API, bulk
+ * operations and lazy iterator included
+ *
+ * @author Alexander Panko
+ */
+public class LongRandomizedQueue implements Iterable<Long> {
+    private int n;
+    private long[] list;
+    private final RandomGenerator random;
+    // count of modifications, lazy iterators fail when it changes
+    private int modCount;
+
+    public LongRandomizedQueue() {
+        this(null);
+    }
+
+    // draws random items from the given generator instead of shared StdRandom
+    public LongRandomizedQueue(RandomGenerator random) {
+        list = new long[1];
+        this.random = random;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    private void resize(int capacity) {
+        assert capacity > n;
+        long[] tmp = new long[capacity];
+        System.arraycopy(list, 0, tmp, 0, n);
+        list = tmp;
+    }
+
+    public void enqueue(long item) {
+        if (n == list.length)
+            resize(n << 1);
+        list[n++] = item;
+        modCount++;
+    }
+
+    // remove and return a random item
+    public long dequeue() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        if (n < list.length >> 2)
+            resize(list.length >> 1);
+        if (n > 1) {
+            int i = uniform(n);
+            swap(i, n - 1);
+        }
+        modCount++;
+        return list[--n];
+    }
+
+    // add all the items reserving capacity once
+    public void enqueueAll(long[] items) {
+        if (n + items.length > list.length) {
+            int capacity = list.length;
+            while (capacity < n + items.length)
+                capacity <<= 1;
+            resize(capacity);
+        }
+        System.arraycopy(items, 0, list, n, items.length);
+        n += items.length;
+        modCount++;
+    }
+
+    // remove k random items into dst, shrinking the array at most once
+    public void dequeueMany(int k, long[] dst) {
+        if (k < 0 || k > dst.length)
+            throw new IllegalArgumentException("k must be between 0 and dst.length");
+        if (k > n)
+            throw new NoSuchElementException();
+
+        // partial Fisher-Yates, picked items gather at the tail
+        for (int j = 0; j < k; j++) {
+            int last = n - 1 - j;
+            swap(uniform(last + 1), last);
+            dst[j] = list[last];
+        }
+        n -= k;
+        modCount++;
+
+        if (n < list.length >> 2) {
+            int capacity = list.length;
+            while (capacity > 1 && n < capacity >> 2)
+                capacity >>= 1;
+            resize(capacity);
+        }
+    }
+
+    // write k random items to dst without removing them, either independent
+    // draws or k distinct items
+    public void sampleMany(int k, boolean withReplacement, long[] dst) {
+        if (k < 0 || k > dst.length)
+            throw new IllegalArgumentException("k must be between 0 and dst.length");
+        if (k == 0)
+            return;
+        if (withReplacement) {
+            if (isEmpty())
+                throw new NoSuchElementException();
+            for (int j = 0; j < k; j++)
+                dst[j] = list[uniform(n)];
+            return;
+        }
+
+        if (k > n)
+            throw new NoSuchElementException();
+        // partial Fisher-Yates in place, only the order of items changes
+        for (int j = 0; j < k; j++) {
+            int last = n - 1 - j;
+            swap(uniform(last + 1), last);
+            dst[j] = list[last];
+        }
+        modCount++;
+    }
+
+    // return a random item (but do not remove it)
+    public long sample() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        return list[uniform(n)];
+    }
+
+    private int uniform(int bound) {
+        return random == null ? StdRandom.uniform(bound) : BoundedRandom.uniform(random, bound);
+    }
+
+    private void swap(int i, int j) {
+        long tmp = list[i];
+        list[i] = list[j];
+        list[j] = tmp;
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+        return new ListIterator();
+    }
+
+    private class ListIterator implements PrimitiveIterator.OfLong {
+        long[] items;
+        int count;
+
+        public ListIterator() {
+            items = new long[n];
+            System.arraycopy(list, 0, items, 0, n);
+            count = items.length;
+        }
+
+        public boolean hasNext() {
+            return count > 0;
+        }
+
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            count--;
+            long tmp = items[count];
+            if (count > 0) {
+                int i = uniform(count + 1);
+                items[count] = items[i];
+                items[i] = tmp;
+            }
+            return items[count];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Returns iterator over items in random order which takes O(1) time and
+    // memory to create, see RandomizedQueue.lazyIterator. Fails if the queue
+    // is modified while iterating
+    public PrimitiveIterator.OfLong lazyIterator() {
+        return new LazyIterator();
+    }
+
+    /**
+     * Permutes indexes with 4-round Feistel network with cycle walking, the
+     * same as {@code RandomizedQueue.LazyIterator}
+     */
+    private class LazyIterator implements PrimitiveIterator.OfLong {
+        private static final int ROUNDS = 4;
+
+        private final int count = n;
+        private final int expectedModCount = modCount;
+        private final int half;
+        private final int mask;
+        private final int[] keys = new int[ROUNDS];
+        private int i;
+
+        public LazyIterator() {
+            int bits = 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1));
+            half = (bits + 1) >> 1;
+            mask = (1 << half) - 1;
+            for (int r = 0; r < ROUNDS; r++)
+                keys[r] = uniform(Integer.MAX_VALUE);
+        }
+
+        public boolean hasNext() {
+            return i < count;
+        }
+
+        public long nextLong() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int x = i++;
+            do {
+                x = permute(x);
+            } while (x >= count);
+            return list[x];
+        }
+
+        private int permute(int x) {
+            int l = x >>> half;
+            int r = x & mask;
+            for (int round = 0; round < ROUNDS; round++) {
+                int f = (r ^ keys[round]) * 0x9E3779B9;
+                f ^= f >>> 16;
+                f *= 0x85EBCA6B;
+                f ^= f >>> 13;
+                int tmp = r;
+                r = l ^ (f & mask);
+                l = tmp;
+            }
+            return (l << half) | r;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        LongRandomizedQueue q = new LongRandomizedQueue();
+        int count = 5;
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+        StdOut.printf("Inserting: %d elements\n", count);
+
+        for (int i = 0; i < count; i++) {
+            q.enqueue(i);
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+
+        StdOut.println("Iterating:");
+        PrimitiveIterator.OfLong it = q.iterator();
+        while (it.hasNext()) {
+            StdOut.printf("Element: %d\n", it.nextLong());
+        }
+
+        StdOut.println("Iterating lazily:");
+        it = q.lazyIterator();
+        while (it.hasNext()) {
+            StdOut.printf("Element: %d\n", it.nextLong());
+        }
+
+        StdOut.printf("Removing: %d elements\n", count);
+
+        for (int i = 0; i < count; i++) {
+            StdOut.printf("Element: %d\n", q.dequeue());
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+    }
+}
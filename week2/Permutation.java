@@ -1,25 +1,206 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdRandom;
 
 public class Permutation {
-    public static void main(String[] args) {
-        if (args.length != 1) {
-            StdOut.println("Usage: java Permutation n < stream");
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            StdOut.println("Usage: java Permutation n [file] < stream");
             StdOut.println("Where:");
             StdOut.println("  n      - number of items to print, should be >= 1");
+            StdOut.println("  file   - input file, read memory-mapped instead of the stream");
             StdOut.println("  stream - input items");
             return;
         }
 
         int n = Integer.parseInt(args[0]);
+
+        if (args.length == 2) {
+            try (FileChannel channel = FileChannel.open(Paths.get(args[1]), StandardOpenOption.READ)) {
+                sample(n, channel);
+            }
+            return;
+        }
+
+        RandomizedQueue<String> q = sample(n);
+
+        while (!q.isEmpty()) {
+            StdOut.println(q.dequeue());
+        }
+    }
+
+    // Reads the whole input keeping uniform random sample of at most k items,
+    // Li's Algorithm L: after the reservoir is filled it draws how many items
+    // to skip before the next replacement instead of a random number per item
+    private static RandomizedQueue<String> sample(int k) {
         RandomizedQueue<String> q = new RandomizedQueue<String>();
+        if (k <= 0)
+            return q;
+
+        while (q.size() < k && !StdIn.isEmpty()) {
+            q.enqueue(StdIn.readString());
+        }
 
+        double w = weight(k);
         while (!StdIn.isEmpty()) {
+            for (long skip = skip(w); skip > 0 && !StdIn.isEmpty(); skip--) {
+                StdIn.readString();
+            }
+            if (StdIn.isEmpty())
+                break;
+
+            // replace random item of the reservoir
+            q.dequeue();
             q.enqueue(StdIn.readString());
+            w *= weight(k);
         }
+        return q;
+    }
 
-        for (int i = 1; i <= n; i++) {
-            StdOut.println(q.dequeue());
+    // Same sampling over memory-mapped file, the reservoir keeps only token
+    // offsets and lengths, and only the sampled tokens are decoded to strings
+    private static void sample(int k, FileChannel channel) throws IOException {
+        if (k <= 0)
+            return;
+
+        MappedTokens tokens = new MappedTokens(channel);
+        long[] offsets = new long[Math.min(k, 1024)];
+        int[] lengths = new int[offsets.length];
+        int count = 0;
+
+        while (count < k && tokens.next()) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, (int) Math.min(k, 2L * count));
+                lengths = Arrays.copyOf(lengths, offsets.length);
+            }
+            offsets[count] = tokens.offset;
+            lengths[count] = tokens.length;
+            count++;
+        }
+
+        double w = weight(k);
+        while (count == k) {
+            boolean more = true;
+            for (long skip = skip(w); skip > 0 && more; skip--) {
+                more = tokens.next();
+            }
+            if (!more || !tokens.next())
+                break;
+
+            int i = StdRandom.uniform(k);
+            offsets[i] = tokens.offset;
+            lengths[i] = tokens.length;
+            w *= weight(k);
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+            int j = StdRandom.uniform(i + 1);
+            StdOut.println(read(channel, offsets[j], lengths[j]));
+            offsets[j] = offsets[i];
+            lengths[j] = lengths[i];
+        }
+    }
+
+    private static String read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0)
+                throw new IOException("Unexpected end of file");
+        }
+        return new String(buf.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    // random factor of Algorithm L weight
+    private static double weight(int k) {
+        return Math.exp(Math.log(random()) / k);
+    }
+
+    // number of items to skip before the next replacement
+    private static long skip(double w) {
+        return (long) Math.floor(Math.log(random()) / Math.log(1 - w));
+    }
+
+    // uniform random number in (0, 1]
+    private static double random() {
+        return 1 - StdRandom.uniform();
+    }
+
+    /**
+     * Splits memory-mapped file into whitespace separated tokens without
+     * copying. The file is mapped by windows, a token crossing the window's
+     * end makes the next window start at the token
+     */
+    private static class MappedTokens {
+        private static final int WINDOW = 1 << 30;
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buf;
+        private long base;
+        private int pos;
+
+        // offset and length of the last read token
+        long offset;
+        int length;
+
+        MappedTokens(FileChannel channel) throws IOException {
+            this.channel = channel;
+            size = channel.size();
+            map(0);
+        }
+
+        private void map(long from) throws IOException {
+            base = from;
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(WINDOW, size - from));
+            pos = 0;
+        }
+
+        boolean next() throws IOException {
+            while (true) {
+                if (pos == buf.limit()) {
+                    if (base + pos >= size)
+                        return false;
+                    map(base + pos);
+                }
+                if (!isSpace(buf.get(pos)))
+                    break;
+                pos++;
+            }
+
+            int start = pos;
+            while (true) {
+                if (pos == buf.limit()) {
+                    if (base + pos >= size)
+                        break;
+                    if (start == 0)
+                        throw new IOException("Token is longer than " + WINDOW + " bytes");
+                    int read = pos - start;
+                    map(base + start);
+                    pos = read;
+                    start = 0;
+                    continue;
+                }
+                if (isSpace(buf.get(pos)))
+                    break;
+                pos++;
+            }
+
+            offset = base + start;
+            length = pos - start;
+            return true;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,26 @@
+import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 import java.util.Iterator;
+import java.util.random.RandomGenerator;
+
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
     private int n;
     private Item[] list;
+    private final RandomGenerator random;
+    // count of modifications, lazy iterators fail when it changes
+    private int modCount;
 
     public RandomizedQueue() {
+        this(null);
+    }
+
+    // draws random items from the given generator instead of shared StdRandom
+    public RandomizedQueue(RandomGenerator random) {
         list = (Item[]) new Object[1];
+        this.random = random;
     }
 
     public boolean isEmpty() {
@@ -32,6 +44,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (n == list.length)
             resize(n << 1);
         list[n++] = item;
+        modCount++;
     }
 
     // remove and return a random item
@@ -41,20 +54,93 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (n < list.length >> 2)
             resize(list.length >> 1);
         if (n > 1) {
-            int i = StdRandom.uniform(n);
+            int i = uniform(n);
             swap(i, n - 1);
         }
         n--;
         Item item = list[n];
         list[n] = null;
+        modCount++;
         return item;
     }
 
+    // add all the items reserving capacity once
+    public void enqueueAll(Item[] items) {
+        for (Item item : items) {
+            if (item == null)
+                throw new IllegalArgumentException();
+        }
+        if (n + items.length > list.length) {
+            int capacity = list.length;
+            while (capacity < n + items.length)
+                capacity <<= 1;
+            resize(capacity);
+        }
+        System.arraycopy(items, 0, list, n, items.length);
+        n += items.length;
+        modCount++;
+    }
+
+    // remove k random items into dst, shrinking the array at most once
+    public void dequeueMany(int k, Item[] dst) {
+        if (k < 0 || k > dst.length)
+            throw new IllegalArgumentException("k must be between 0 and dst.length");
+        if (k > n)
+            throw new NoSuchElementException();
+
+        // partial Fisher-Yates, picked items gather at the tail
+        for (int j = 0; j < k; j++) {
+            int last = n - 1 - j;
+            swap(uniform(last + 1), last);
+            dst[j] = list[last];
+            list[last] = null;
+        }
+        n -= k;
+        modCount++;
+
+        if (n < list.length >> 2) {
+            int capacity = list.length;
+            while (capacity > 1 && n < capacity >> 2)
+                capacity >>= 1;
+            resize(capacity);
+        }
+    }
+
+    // write k random items to dst without removing them, either independent
+    // draws or k distinct items
+    public void sampleMany(int k, boolean withReplacement, Item[] dst) {
+        if (k < 0 || k > dst.length)
+            throw new IllegalArgumentException("k must be between 0 and dst.length");
+        if (k == 0)
+            return;
+        if (withReplacement) {
+            if (isEmpty())
+                throw new NoSuchElementException();
+            for (int j = 0; j < k; j++)
+                dst[j] = list[uniform(n)];
+            return;
+        }
+
+        if (k > n)
+            throw new NoSuchElementException();
+        // partial Fisher-Yates in place, only the order of items changes
+        for (int j = 0; j < k; j++) {
+            int last = n - 1 - j;
+            swap(uniform(last + 1), last);
+            dst[j] = list[last];
+        }
+        modCount++;
+    }
+
     // return a random item (but do not remove it)
     public Item sample() {
         if (isEmpty())
             throw new NoSuchElementException();
-        return list[StdRandom.uniform(n)];
+        return list[uniform(n)];
+    }
+
+    private int uniform(int bound) {
+        return random == null ? StdRandom.uniform(bound) : BoundedRandom.uniform(random, bound);
     }
 
     private void swap(int i, int j) {
@@ -87,7 +173,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             count--;
             Item tmp;
             if (count > 0) {
-                int i = StdRandom.uniform(count + 1);
+                int i = uniform(count + 1);
                 tmp = items[i];
                 items[i] = items[count];
             } else {
@@ -102,6 +188,74 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    // Returns iterator over items in random order which takes O(1) time and
+    // memory to create: i-th item is at the position given by a keyed
+    // pseudo-random permutation of [0, n), so the iterator does work only for
+    // the items actually taken. Fails if the queue is modified while iterating
+    public Iterator<Item> lazyIterator() {
+        return new LazyIterator();
+    }
+
+    /**
+     * Permutes indexes with 4-round Feistel network over the smallest domain of
+     * 2^(2h) values covering [0, n), an index falling outside of [0, n) is
+     * permuted again until it's back (cycle walking). The domain is less than
+     * 4n, so it takes less than 4 rounds of the network on average
+     */
+    private class LazyIterator implements Iterator<Item> {
+        private static final int ROUNDS = 4;
+
+        private final int count = n;
+        private final int expectedModCount = modCount;
+        private final int half;
+        private final int mask;
+        private final int[] keys = new int[ROUNDS];
+        private int i;
+
+        public LazyIterator() {
+            int bits = 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1));
+            half = (bits + 1) >> 1;
+            mask = (1 << half) - 1;
+            for (int r = 0; r < ROUNDS; r++)
+                keys[r] = uniform(Integer.MAX_VALUE);
+        }
+
+        public boolean hasNext() {
+            return i < count;
+        }
+
+        public Item next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int x = i++;
+            do {
+                x = permute(x);
+            } while (x >= count);
+            return list[x];
+        }
+
+        private int permute(int x) {
+            int l = x >>> half;
+            int r = x & mask;
+            for (int round = 0; round < ROUNDS; round++) {
+                int f = (r ^ keys[round]) * 0x9E3779B9;
+                f ^= f >>> 16;
+                f *= 0x85EBCA6B;
+                f ^= f >>> 13;
+                int tmp = r;
+                r = l ^ (f & mask);
+                l = tmp;
+            }
+            return (l << half) | r;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     // unit testing (required)
     public static void main(String[] args) {
         RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
@@ -123,6 +277,12 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
 
+        StdOut.println("Iterating lazily:");
+        Iterator<Integer> it = q.lazyIterator();
+        while (it.hasNext()) {
+            StdOut.printf("Element: %d\n", it.next());
+        }
+
         StdOut.printf("Removing: %d elements\n", count);
 
         for (int i = 0; i < count; i++) {
@@ -0,0 +1,163 @@
+import java.util.NoSuchElementException;
+import java.util.Iterator;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Double-ended queue with the same API as {@code Deque} backed by a circular
+ * array instead of linked nodes. The array doubles when full and halves when
+ * it becomes a quarter full, but never shrinks below the minimum capacity
+ * and never grows beyond 2^30 items
+ *
+ * @author Alexander Panko
+ */
+public class RingDeque<Item> implements Iterable<Item> {
+    private static final int DEFAULT_MIN_CAPACITY = 8;
+    // the largest power of two array length
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int minCapacity;
+    private Item[] items;
+    private int head;
+    private int size;
+
+    public RingDeque() {
+        this(DEFAULT_MIN_CAPACITY);
+    }
+
+    // minCapacity is rounded up to the power of two
+    public RingDeque(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Minimum capacity must be between 1 and 2^30");
+        int capacity = 1;
+        while (capacity < minCapacity)
+            capacity <<= 1;
+        this.minCapacity = capacity;
+        items = (Item[]) new Object[capacity];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        if (size == items.length)
+            grow();
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        if (size == items.length)
+            grow();
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public Item removeFirst() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrink();
+        return item;
+    }
+
+    public Item removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        int i = (head + size - 1) & (items.length - 1);
+        Item item = items[i];
+        items[i] = null;
+        size--;
+        shrink();
+        return item;
+    }
+
+    private void grow() {
+        if (items.length == MAX_CAPACITY)
+            throw new IllegalStateException("Deque is full, it holds at most 2^30 items");
+        resize(items.length << 1);
+    }
+
+    private void shrink() {
+        if (size < items.length >> 2 && items.length >> 1 >= minCapacity)
+            resize(items.length >> 1);
+    }
+
+    private void resize(int capacity) {
+        assert capacity >= size;
+        Item[] tmp = (Item[]) new Object[capacity];
+        int tail = Math.min(size, items.length - head);
+        System.arraycopy(items, head, tmp, 0, tail);
+        System.arraycopy(items, 0, tmp, tail, size - tail);
+        items = tmp;
+        head = 0;
+    }
+
+    public Iterator<Item> iterator() {
+        return new ListIterator();
+    }
+
+    private class ListIterator implements Iterator<Item> {
+        private int i;
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return items[(head + i++) & (items.length - 1)];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+
+        RingDeque<Integer> q = new RingDeque<Integer>(4);
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+
+        int count = 10;
+
+        StdOut.printf("Inserting: %d elements\n", count * 2);
+
+        for (int i = 1; i <= count; i++) {
+            StdOut.printf("addFirst(%d)\n", i * 10);
+            q.addFirst(i * 10);
+            StdOut.printf("addLast(%d)\n", i * 100);
+            q.addLast(i * 100);
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+
+        StdOut.println("Iterating:");
+        for (int i : q) {
+            StdOut.printf("Element: %d\n", i);
+        }
+
+        StdOut.printf("Removing: %d elements\n", count * 2);
+        for (int i = 0; i < count; i++) {
+            StdOut.printf("removeFirst = %d\n", q.removeFirst());
+            StdOut.printf("removeLast = %d\n", q.removeLast());
+        }
+
+        StdOut.printf("Size: %d, IsEmpty: %s\n", q.size(), q.isEmpty());
+    }
+}
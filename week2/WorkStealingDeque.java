@@ -0,0 +1,169 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Chase-Lev work-stealing deque. The owner thread adds and removes items at
+ * the last end with {@code addLast}, {@code removeLast} and {@code pollLast},
+ * other threads steal items from the first end with {@code pollFirst}. The
+ * owner never does CAS except when it races thieves for the very last item,
+ * thieves contend for the first item with a single CAS.
+ * Stolen items stay referenced by the array until their slot is reused
+ *
+ * @author Alexander Panko
+ */
+public class WorkStealingDeque<Item> {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private volatile AtomicReferenceArray<Item> items;
+    private final AtomicLong top = new AtomicLong();
+    private final AtomicLong bottom = new AtomicLong();
+
+    public WorkStealingDeque() {
+        items = new AtomicReferenceArray<Item>(DEFAULT_CAPACITY);
+    }
+
+    public boolean isEmpty() {
+        return bottom.get() <= top.get();
+    }
+
+    // approximate while thieves are stealing
+    public int size() {
+        long n = bottom.get() - top.get();
+        return n < 0 ? 0 : (int) n;
+    }
+
+    // owner only
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        long b = bottom.get();
+        long t = top.get();
+        AtomicReferenceArray<Item> a = items;
+        if (b - t >= a.length() - 1)
+            a = grow(a, t, b);
+        a.lazySet((int) b & (a.length() - 1), item);
+        bottom.lazySet(b + 1);
+    }
+
+    // owner only
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null)
+            throw new NoSuchElementException();
+        return item;
+    }
+
+    // owner only, returns null if the deque is empty
+    public Item pollLast() {
+        long b = bottom.get() - 1;
+        AtomicReferenceArray<Item> a = items;
+        // volatile write orders the claim of the last slot before reading top
+        bottom.set(b);
+        long t = top.get();
+        if (t > b) {
+            bottom.set(t);
+            return null;
+        }
+
+        int i = (int) b & (a.length() - 1);
+        Item item = a.get(i);
+        if (t < b) {
+            a.lazySet(i, null);
+            return item;
+        }
+
+        // the last item, race thieves for it
+        if (!top.compareAndSet(t, t + 1))
+            item = null;
+        bottom.set(t + 1);
+        return item;
+    }
+
+    // any thread, returns null if the deque is empty or the item was taken
+    // by another thread
+    public Item pollFirst() {
+        long t = top.get();
+        long b = bottom.get();
+        if (t >= b)
+            return null;
+        AtomicReferenceArray<Item> a = items;
+        Item item = a.get((int) t & (a.length() - 1));
+        if (!top.compareAndSet(t, t + 1))
+            return null;
+        return item;
+    }
+
+    // owner only, old array is left intact for thieves still reading it
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> a, long t, long b) {
+        AtomicReferenceArray<Item> tmp = new AtomicReferenceArray<Item>(a.length() << 1);
+        for (long i = t; i < b; i++)
+            tmp.lazySet((int) i & (tmp.length() - 1), a.get((int) i & (a.length() - 1)));
+        items = tmp;
+        return tmp;
+    }
+
+    // owner pushes and pops while thieves steal, every item must be taken once
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+        int[] taken = new int[count];
+        Thread[] workers = new Thread[thieves];
+        AtomicBoolean done = new AtomicBoolean();
+        int[] stolen = new int[thieves];
+        for (int t = 0; t < thieves; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                while (true) {
+                    boolean finished = done.get();
+                    Integer item = q.pollFirst();
+                    if (item != null) {
+                        taken[item]++;
+                        stolen[id]++;
+                    } else if (finished && q.isEmpty()) {
+                        return;
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        int popped = 0;
+        for (int i = 0; i < count; i++) {
+            q.addLast(i);
+            if (i % 3 == 0) {
+                Integer item = q.pollLast();
+                if (item != null) {
+                    taken[item]++;
+                    popped++;
+                }
+            }
+        }
+        Integer item;
+        while ((item = q.pollLast()) != null) {
+            taken[item]++;
+            popped++;
+        }
+        done.set(true);
+        for (Thread w : workers)
+            w.join();
+
+        int lost = 0;
+        int duplicated = 0;
+        for (int i = 0; i < count; i++) {
+            if (taken[i] == 0)
+                lost++;
+            else if (taken[i] > 1)
+                duplicated++;
+        }
+        StdOut.printf("Pushed: %d, popped by owner: %d\n", count, popped);
+        for (int t = 0; t < thieves; t++)
+            StdOut.printf("Stolen by thief %d: %d\n", t, stolen[t]);
+        StdOut.printf("Lost: %d, taken twice: %d\n", lost, duplicated);
+    }
+}
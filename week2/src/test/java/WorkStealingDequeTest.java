@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@code WorkStealingDeque}
+ *
+ * @author Alexander Panko
+ */
+class WorkStealingDequeTest {
+
+    @Test
+    void ownerTakesLastThiefTakesFirst() {
+        WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+        for (int i = 0; i < 5; i++)
+            q.addLast(i);
+        assertEquals(5, q.size());
+        assertEquals(4, q.pollLast());
+        assertEquals(0, q.pollFirst());
+        assertEquals(3, q.removeLast());
+        assertEquals(1, q.pollFirst());
+        assertEquals(2, q.pollLast());
+        assertTrue(q.isEmpty());
+        assertNull(q.pollLast());
+        assertNull(q.pollFirst());
+    }
+
+    @Test
+    void growsKeepingOrder() {
+        WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+        // move top off zero so the grown array wraps around
+        for (int i = 0; i < 10; i++)
+            q.addLast(-1);
+        for (int i = 0; i < 10; i++)
+            q.pollFirst();
+        for (int i = 0; i < 1000; i++)
+            q.addLast(i);
+        assertEquals(1000, q.size());
+        for (int i = 0; i < 500; i++)
+            assertEquals(i, q.pollFirst());
+        for (int i = 999; i >= 500; i--)
+            assertEquals(i, q.pollLast());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void rejectsNullAndEmptyRemove() {
+        WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+        assertThrows(IllegalArgumentException.class, () -> q.addLast(null));
+        assertThrows(NoSuchElementException.class, q::removeLast);
+    }
+
+    @Test
+    void everyItemTakenOnceUnderStealing() throws InterruptedException {
+        int count = 200000;
+        int thieves = 3;
+        WorkStealingDeque<Integer> q = new WorkStealingDeque<Integer>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(count);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] workers = new Thread[thieves];
+        for (int t = 0; t < thieves; t++) {
+            workers[t] = new Thread(() -> {
+                while (true) {
+                    boolean finished = done.get();
+                    Integer item = q.pollFirst();
+                    if (item != null)
+                        taken.incrementAndGet(item);
+                    else if (finished && q.isEmpty())
+                        return;
+                }
+            });
+            workers[t].start();
+        }
+
+        for (int i = 0; i < count; i++) {
+            q.addLast(i);
+            if (i % 3 == 0) {
+                Integer item = q.pollLast();
+                if (item != null)
+                    taken.incrementAndGet(item);
+            }
+        }
+        Integer item;
+        while ((item = q.pollLast()) != null)
+            taken.incrementAndGet(item);
+        done.set(true);
+        for (Thread w : workers)
+            w.join();
+
+        for (int i = 0; i < count; i++)
+            assertEquals(1, taken.get(i), "item " + i);
+    }
+}